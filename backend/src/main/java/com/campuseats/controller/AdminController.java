@@ -6,15 +6,20 @@ import com.campuseats.dto.CanteenOwnerApprovalRequest;
 import com.campuseats.model.Admin;
 import com.campuseats.model.Canteen;
 import com.campuseats.model.CanteenOwner;
+import com.campuseats.model.Identity;
 import com.campuseats.repository.AdminRepository;
 import com.campuseats.security.JwtTokenProvider;
+import com.campuseats.security.LoginCapacityExceededException;
+import com.campuseats.security.LoginExecutor;
 import com.campuseats.service.CanteenOwnerService;
 import com.campuseats.service.CanteenService;
+import com.campuseats.service.IdentityService;
+import com.campuseats.service.LoginKeyTakenException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -30,12 +35,13 @@ import java.util.Set;
 @RequiredArgsConstructor
 public class AdminController {
 
-    private final AuthenticationManager authenticationManager;
+    private final LoginExecutor loginExecutor;
     private final AdminRepository adminRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider tokenProvider;
     private final CanteenOwnerService canteenOwnerService;
     private final CanteenService canteenService;
+    private final IdentityService identityService;
 
     @PostMapping("/login")
     public ResponseEntity<?> authenticateAdmin(@Valid @RequestBody AdminLoginRequest loginRequest) {
@@ -45,7 +51,7 @@ public class AdminController {
                     .orElseThrow(() -> new RuntimeException("Invalid email or password"));
 
             // Authenticate
-            Authentication authentication = authenticationManager.authenticate(
+            Authentication authentication = loginExecutor.authenticate(
                     new UsernamePasswordAuthenticationToken(
                             loginRequest.getEmail(),
                             loginRequest.getPassword()));
@@ -61,6 +67,10 @@ public class AdminController {
 
             return ResponseEntity.ok(response);
 
+        } catch (LoginCapacityExceededException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Error: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body("Error: Invalid email or password");
@@ -86,7 +96,14 @@ public class AdminController {
             admin.setRoles(roles);
             admin.setEnabled(true);
 
-            adminRepository.save(admin);
+            Admin savedAdmin = adminRepository.save(admin);
+            try {
+                identityService.register(Identity.of(savedAdmin));
+            } catch (LoginKeyTakenException e) {
+                // The email is another account's login
+                adminRepository.delete(savedAdmin);
+                return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+            }
 
             return ResponseEntity.status(HttpStatus.CREATED)
                     .body("Admin initialized successfully!");
@@ -3,14 +3,19 @@ package com.campuseats.controller;
 import com.campuseats.dto.JwtResponse;
 import com.campuseats.dto.LoginRequest;
 import com.campuseats.dto.SignupRequest;
+import com.campuseats.model.Identity;
 import com.campuseats.model.User;
 import com.campuseats.repository.UserRepository;
 import com.campuseats.security.JwtTokenProvider;
+import com.campuseats.security.LoginCapacityExceededException;
+import com.campuseats.security.LoginExecutor;
+import com.campuseats.service.IdentityService;
+import com.campuseats.service.LoginKeyTakenException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -25,17 +30,25 @@ import java.util.Set;
 @RequiredArgsConstructor
 public class AuthController {
 
-    private final AuthenticationManager authenticationManager;
+    private final LoginExecutor loginExecutor;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider tokenProvider;
+    private final IdentityService identityService;
 
     @PostMapping("/login")
     public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        loginRequest.getUsername(),
-                        loginRequest.getPassword()));
+        Authentication authentication;
+        try {
+            authentication = loginExecutor.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                            loginRequest.getUsername(),
+                            loginRequest.getPassword()));
+        } catch (LoginCapacityExceededException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Error: " + e.getMessage());
+        }
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
         String jwt = tokenProvider.generateToken(authentication);
@@ -69,7 +82,14 @@ public class AuthController {
         roles.add("USER");
         user.setRoles(roles);
 
-        userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        try {
+            identityService.register(Identity.of(savedUser));
+        } catch (LoginKeyTakenException e) {
+            // The username is another account's login email
+            userRepository.delete(savedUser);
+            return ResponseEntity.badRequest().body("Error: Username is already taken!");
+        }
 
         return ResponseEntity.status(HttpStatus.CREATED).body("User registered successfully!");
     }
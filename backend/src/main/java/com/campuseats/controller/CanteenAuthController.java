@@ -5,16 +5,21 @@ import com.campuseats.dto.CanteenOwnerResponse;
 import com.campuseats.dto.CanteenRegistrationRequest;
 import com.campuseats.model.Canteen;
 import com.campuseats.model.CanteenOwner;
+import com.campuseats.model.Identity;
 import com.campuseats.repository.CanteenOwnerRepository;
 import com.campuseats.repository.CanteenRepository;
 import com.campuseats.security.JwtTokenProvider;
+import com.campuseats.security.LoginCapacityExceededException;
+import com.campuseats.security.LoginExecutor;
 import com.campuseats.service.CanteenOwnerService;
 import com.campuseats.service.CanteenService;
+import com.campuseats.service.IdentityService;
+import com.campuseats.service.LoginKeyTakenException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -26,13 +31,14 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class CanteenAuthController {
 
-    private final AuthenticationManager authenticationManager;
+    private final LoginExecutor loginExecutor;
     private final CanteenOwnerRepository canteenOwnerRepository;
     private final CanteenRepository canteenRepository;
     private final CanteenService canteenService;
     private final CanteenOwnerService canteenOwnerService;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider tokenProvider;
+    private final IdentityService identityService;
 
     @PostMapping("/register")
     public ResponseEntity<?> registerCanteen(@Valid @RequestBody CanteenRegistrationRequest request) {
@@ -55,6 +61,13 @@ public class CanteenAuthController {
             owner.setEnabled(true);
 
             CanteenOwner savedOwner = canteenOwnerService.createCanteenOwner(owner);
+            try {
+                identityService.register(Identity.of(savedOwner));
+            } catch (LoginKeyTakenException e) {
+                // The email is another account's login
+                canteenOwnerRepository.delete(savedOwner);
+                return ResponseEntity.badRequest().body("Error: Email is already registered!");
+            }
 
             // Create Canteen
             Canteen canteen = new Canteen();
@@ -151,7 +164,7 @@ public class CanteenAuthController {
             }
 
             // Authenticate
-            Authentication authentication = authenticationManager.authenticate(
+            Authentication authentication = loginExecutor.authenticate(
                     new UsernamePasswordAuthenticationToken(
                             loginRequest.getEmail(),
                             loginRequest.getPassword()));
@@ -183,6 +196,10 @@ public class CanteenAuthController {
 
             return ResponseEntity.ok(response);
 
+        } catch (LoginCapacityExceededException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Error: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body("Error: Invalid email or password");
@@ -8,6 +8,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 @RestController
@@ -136,4 +138,18 @@ public class CanteenController {
                     .body("Error: " + e.getMessage());
         }
     }
+
+    @GetMapping("/{id}/pickup-slots")
+    public ResponseEntity<?> getPickupSlots(@PathVariable String id,
+            @RequestParam(required = false) String date) {
+        try {
+            LocalDate day = date != null ? LocalDate.parse(date) : LocalDate.now();
+            return ResponseEntity.ok(canteenService.getPickupSlots(id, day));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("Error: Invalid date");
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("Error: " + e.getMessage());
+        }
+    }
 }
@@ -3,14 +3,11 @@ package com.campuseats.controller;
 import com.campuseats.dto.AddToCartRequest;
 import com.campuseats.dto.UpdateCartItemRequest;
 import com.campuseats.model.Cart;
-import com.campuseats.model.User;
-import com.campuseats.repository.UserRepository;
+import com.campuseats.security.CurrentUserId;
 import com.campuseats.service.CartService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -19,27 +16,18 @@ import org.springframework.web.bind.annotation.*;
 public class CartController {
 
     private final CartService cartService;
-    private final UserRepository userRepository;
-
-    private String getCurrentUserId() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return user.getId();
-    }
 
     @GetMapping
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<Cart> getCart() {
-        return ResponseEntity.ok(cartService.getCartByUserId(getCurrentUserId()));
+    public ResponseEntity<Cart> getCart(@CurrentUserId String userId) {
+        return ResponseEntity.ok(cartService.getCartByUserId(userId));
     }
 
     @PostMapping("/items")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<Cart> addItemToCart(@RequestBody AddToCartRequest request) {
+    public ResponseEntity<Cart> addItemToCart(@CurrentUserId String userId, @RequestBody AddToCartRequest request) {
         return ResponseEntity.ok(cartService.addItemToCart(
-                getCurrentUserId(),
+                userId,
                 request.getMenuItemId(),
                 request.getQuantity()));
     }
@@ -47,24 +35,26 @@ public class CartController {
     @PutMapping("/items/{menuItemId}")
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<Cart> updateCartItemQuantity(
+            @CurrentUserId String userId,
             @PathVariable String menuItemId,
             @RequestBody UpdateCartItemRequest request) {
         return ResponseEntity.ok(cartService.updateCartItemQuantity(
-                getCurrentUserId(),
+                userId,
                 menuItemId,
                 request.getQuantity()));
     }
 
     @DeleteMapping("/items/{menuItemId}")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<Cart> removeItemFromCart(@PathVariable String menuItemId) {
-        return ResponseEntity.ok(cartService.removeItemFromCart(getCurrentUserId(), menuItemId));
+    public ResponseEntity<Cart> removeItemFromCart(@CurrentUserId String userId,
+            @PathVariable String menuItemId) {
+        return ResponseEntity.ok(cartService.removeItemFromCart(userId, menuItemId));
     }
 
     @DeleteMapping
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<Void> clearCart() {
-        cartService.clearCart(getCurrentUserId());
+    public ResponseEntity<Void> clearCart(@CurrentUserId String userId) {
+        cartService.clearCart(userId);
         return ResponseEntity.ok().build();
     }
 }
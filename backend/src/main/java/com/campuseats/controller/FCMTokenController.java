@@ -2,16 +2,13 @@ package com.campuseats.controller;
 
 import com.campuseats.dto.FCMTokenRequest;
 import com.campuseats.model.FCMToken;
-import com.campuseats.model.User;
 import com.campuseats.repository.FCMTokenRepository;
-import com.campuseats.repository.UserRepository;
+import com.campuseats.security.CurrentUserId;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -24,22 +21,12 @@ import java.util.Optional;
 public class FCMTokenController {
 
     private final FCMTokenRepository fcmTokenRepository;
-    private final UserRepository userRepository;
-
-    private String getCurrentUserId() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return user.getId();
-    }
 
     @PostMapping("/register")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> registerToken(@Valid @RequestBody FCMTokenRequest request) {
+    public ResponseEntity<?> registerToken(@CurrentUserId String userId,
+            @Valid @RequestBody FCMTokenRequest request) {
         try {
-            String userId = getCurrentUserId();
-
             // Check if token already exists
             Optional<FCMToken> existingToken = fcmTokenRepository.findByToken(request.getToken());
             if (existingToken.isPresent()) {
@@ -2,15 +2,12 @@ package com.campuseats.controller;
 
 import com.campuseats.dto.LoyaltyAccountResponse;
 import com.campuseats.dto.RedeemPointsRequest;
-import com.campuseats.model.User;
-import com.campuseats.repository.UserRepository;
+import com.campuseats.security.CurrentUserId;
 import com.campuseats.service.LoyaltyService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -21,20 +18,18 @@ import java.util.Map;
 public class LoyaltyController {
 
     private final LoyaltyService loyaltyService;
-    private final UserRepository userRepository;
 
     @GetMapping("/account")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<LoyaltyAccountResponse> getAccount() {
-        String userId = getCurrentUserId();
+    public ResponseEntity<LoyaltyAccountResponse> getAccount(@CurrentUserId String userId) {
         return ResponseEntity.ok(loyaltyService.getAccount(userId));
     }
 
     @PostMapping("/redeem")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> redeemPoints(@Valid @RequestBody RedeemPointsRequest request) {
+    public ResponseEntity<?> redeemPoints(@CurrentUserId String userId,
+            @Valid @RequestBody RedeemPointsRequest request) {
         try {
-            String userId = getCurrentUserId();
             Double discount = loyaltyService.redeemPoints(userId, request.getPoints());
             return ResponseEntity.ok(Map.of(
                     "discount", discount,
@@ -47,16 +42,7 @@ public class LoyaltyController {
 
     @GetMapping("/spending")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<Map<String, Double>> getWeeklySpending() {
-        String userId = getCurrentUserId();
+    public ResponseEntity<Map<String, Double>> getWeeklySpending(@CurrentUserId String userId) {
         return ResponseEntity.ok(loyaltyService.getWeeklySpending(userId));
     }
-
-    private String getCurrentUserId() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return user.getId();
-    }
 }
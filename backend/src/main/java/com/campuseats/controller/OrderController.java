@@ -1,22 +1,37 @@
 package com.campuseats.controller;
 
+import com.campuseats.dto.CheckoutSessionResponse;
 import com.campuseats.dto.CreateOrderRequest;
+import com.campuseats.dto.OrderHistoryQuery;
+import com.campuseats.dto.OrderPage;
+import com.campuseats.dto.OrderStats;
+import com.campuseats.dto.OrderSummary;
 import com.campuseats.dto.OrderResponse;
-import com.campuseats.model.Order;
-import com.campuseats.model.User;
-import com.campuseats.repository.OrderRepository;
-import com.campuseats.repository.UserRepository;
+import com.campuseats.dto.QrCodeContent;
+import com.campuseats.security.CurrentUserId;
+import com.campuseats.service.IdempotencyService;
+import com.campuseats.service.OrderEventHub;
 import com.campuseats.service.OrderService;
+import com.campuseats.service.PickupSlotUnavailableException;
+import com.campuseats.service.QRCodeService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -24,44 +39,134 @@ import java.util.Map;
 public class OrderController {
 
     private final OrderService orderService;
-    private final UserRepository userRepository;
-    private final OrderRepository orderRepository;
-
-    private String getCurrentUserId() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return user.getId();
-    }
+    private final IdempotencyService idempotencyService;
+    private final QRCodeService qrCodeService;
+    private final OrderEventHub orderEventHub;
 
     @PostMapping
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<List<OrderResponse>> createOrder(@Valid @RequestBody CreateOrderRequest request) {
-        List<OrderResponse> orders = orderService.createOrder(getCurrentUserId(), request);
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<?> createOrder(@CurrentUserId String userId,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody CreateOrderRequest request) {
+        try {
+            return idempotencyService.execute("create-order", userId, idempotencyKey, request, () -> {
+                CheckoutSessionResponse session = orderService.createOrder(userId, request);
+                return ResponseEntity.ok(session);
+            });
+        } catch (PickupSlotUnavailableException e) {
+            // Not stored against the key, so the checkout can be retried
+            Map<String, Object> body = new HashMap<>();
+            body.put("error", e.getMessage());
+            if (e.getSuggestedPickupAt() != null) {
+                body.put("suggestedPickupDate", e.getSuggestedPickupAt().toLocalDate().toString());
+                body.put("suggestedPickupTime", e.getSuggestedPickupAt().toLocalTime()
+                        .format(DateTimeFormatter.ofPattern("HH:mm")));
+            }
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+        }
     }
 
     @GetMapping
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<List<OrderResponse>> getUserOrders() {
-        List<OrderResponse> orders = orderService.getUserOrders(getCurrentUserId());
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<?> getUserOrders(@CurrentUserId String userId, OrderHistoryQuery query) {
+        try {
+            OrderPage page = orderService.getUserOrders(userId, query);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<OrderStats> getUserOrderStats(@CurrentUserId String userId) {
+        return ResponseEntity.ok(orderService.getUserOrderStats(userId));
+    }
+
+    // Server-Sent Events for the current user's orders; replaces polling /{orderId}/status
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('USER')")
+    public SseEmitter streamUserOrders(@CurrentUserId String userId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return orderEventHub.subscribe(OrderService.userTopic(userId), lastEventId);
     }
 
     @GetMapping("/{orderId}")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<OrderResponse> getOrderById(@PathVariable String orderId) {
-        OrderResponse order = orderService.getOrderById(orderId, getCurrentUserId());
+    public ResponseEntity<OrderResponse> getOrderById(@CurrentUserId String userId, @PathVariable String orderId) {
+        OrderResponse order = orderService.getOrderById(orderId, userId);
         return ResponseEntity.ok(order);
     }
 
+    @GetMapping("/{orderId}/qr")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<byte[]> getOrderQrCode(@CurrentUserId String userId,
+            @PathVariable String orderId,
+            @RequestParam(defaultValue = "png") String format,
+            WebRequest webRequest) {
+        QRCodeService.Format qrFormat;
+        try {
+            qrFormat = QRCodeService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        QrCodeContent content;
+        try {
+            content = orderService.getQrCodeContent(orderId, userId);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+
+        // The token changes with the signing secret or the order's canteen, so clients keep it
+        // no longer than it is valid and revalidate against the ETag after that
+        String etag = qrCodeService.etag(content.getToken(), qrFormat);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        long maxAgeSeconds = Math.max(0, Duration.between(Instant.now(), content.getExpiresAt()).getSeconds());
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePrivate())
+                .contentType(qrFormat == QRCodeService.Format.SVG
+                        ? MediaType.valueOf("image/svg+xml")
+                        : MediaType.IMAGE_PNG)
+                .body(qrCodeService.render(content.getToken(), qrFormat));
+    }
+
     @GetMapping("/canteen/{canteenId}")
     @PreAuthorize("hasRole('CANTEEN_OWNER')")
-    public ResponseEntity<List<OrderResponse>> getCanteenOrders(@PathVariable String canteenId) {
+    public ResponseEntity<?> getCanteenOrders(@PathVariable String canteenId, OrderHistoryQuery query) {
         // In a real app, verify that the current user owns this canteen
-        List<OrderResponse> orders = orderService.getCanteenOrders(canteenId);
-        return ResponseEntity.ok(orders);
+        try {
+            OrderPage page = orderService.getCanteenOrders(canteenId, query);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/canteen/{canteenId}/stats")
+    @PreAuthorize("hasRole('CANTEEN_OWNER')")
+    public ResponseEntity<OrderStats> getCanteenOrderStats(@PathVariable String canteenId) {
+        return ResponseEntity.ok(orderService.getCanteenOrderStats(canteenId));
+    }
+
+    @GetMapping("/canteen/{canteenId}/active")
+    @PreAuthorize("hasRole('CANTEEN_OWNER')")
+    public ResponseEntity<List<OrderSummary>> getActiveCanteenOrders(@PathVariable String canteenId) {
+        return ResponseEntity.ok(orderService.getActiveCanteenOrders(canteenId));
+    }
+
+    // Server-Sent Events for a canteen's order board; replaces polling /canteen/{canteenId}
+    @GetMapping(value = "/canteen/{canteenId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('CANTEEN_OWNER')")
+    public SseEmitter streamCanteenOrders(@PathVariable String canteenId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return orderEventHub.subscribe(OrderService.canteenTopic(canteenId), lastEventId);
     }
 
     @PatchMapping("/{orderId}/status")
@@ -93,27 +198,9 @@ public class OrderController {
     @PreAuthorize("hasRole('CANTEEN_OWNER')")
     public ResponseEntity<?> verifyQRCode(@Valid @RequestBody com.campuseats.dto.VerifyQRRequest request) {
         try {
-            // Get the order by ID (scanned from QR code)
-            Order order = orderRepository.findById(request.getScannedData())
-                    .orElseThrow(() -> new RuntimeException("Order not found"));
-
-            // Verify payment status
-            if (!"succeeded".equals(order.getPaymentStatus())) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Order payment not completed"));
-            }
-
-            // Verify the order belongs to this canteen
-            boolean belongsToCanteen = order.getOrderItems().stream()
-                    .anyMatch(item -> item.getCanteenId().equals(request.getCanteenId()));
-
-            if (!belongsToCanteen) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Order does not belong to this canteen"));
-            }
-
-            // Return full order details
-            OrderResponse orderResponse = orderService.getOrderById(request.getScannedData(), null);
+            // Verify the scanned code and return full order details
+            OrderResponse orderResponse = orderService.verifyPickup(request.getScannedData(), request.getCanteenId());
             return ResponseEntity.ok(orderResponse);
-
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -3,8 +3,12 @@ package com.campuseats.controller;
 import com.campuseats.dto.PaymentConfirmRequest;
 import com.campuseats.dto.PaymentIntentRequest;
 import com.campuseats.dto.PaymentIntentResponse;
-import com.campuseats.service.OrderService;
+import com.campuseats.model.Order;
+import com.campuseats.model.PaymentIntentRecord;
+import com.campuseats.security.CurrentUserId;
 import com.campuseats.service.PaymentService;
+import com.campuseats.service.StripeWebhookService;
+import com.stripe.exception.SignatureVerificationException;
 import com.stripe.exception.StripeException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -13,6 +17,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -21,7 +26,7 @@ import java.util.Map;
 public class PaymentController {
 
     private final PaymentService paymentService;
-    private final OrderService orderService;
+    private final StripeWebhookService stripeWebhookService;
 
     // Stripe minimum is ~$0.50 USD ≈ Rs. 165 LKR. Enforce Rs. 200 for a safe
     // buffer.
@@ -29,46 +34,69 @@ public class PaymentController {
 
     @PostMapping("/create-intent")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> createPaymentIntent(@RequestBody PaymentIntentRequest request) {
-        if (request.getAmount() < MINIMUM_ORDER_AMOUNT) {
+    public ResponseEntity<?> createPaymentIntent(@CurrentUserId String userId,
+            @RequestBody PaymentIntentRequest request) {
+        List<Order> orders = paymentService.findPayableOrders(
+                userId, request.getCheckoutSessionId(), request.getOrderId());
+        if (orders.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("message", "These orders have already been paid"));
+        }
+
+        double amount = orders.stream().mapToDouble(Order::getTotalAmount).sum();
+        if (amount < MINIMUM_ORDER_AMOUNT) {
             Map<String, String> error = new HashMap<>();
             error.put("message", String.format(
                     "Minimum order amount is Rs. %.2f. Current total is Rs. %.2f.",
-                    MINIMUM_ORDER_AMOUNT, request.getAmount()));
+                    MINIMUM_ORDER_AMOUNT, amount));
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
         }
 
         try {
-            PaymentIntentResponse response = paymentService.createPaymentIntent(
-                    request.getAmount(),
-                    request.getOrderId());
+            PaymentIntentResponse response = paymentService.createPaymentIntent(userId, orders);
             return ResponseEntity.ok(response);
         } catch (StripeException e) {
             throw new RuntimeException("Failed to create payment intent: " + e.getMessage());
         }
     }
 
+    /**
+     * Reports the payment as last recorded from Stripe's webhook events. The
+     * orders it covers were fixed when the intent was created; order ids in
+     * the request are ignored.
+     */
     @PostMapping("/confirm")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<Map<String, String>> confirmPayment(@RequestBody PaymentConfirmRequest request) {
+    public ResponseEntity<?> confirmPayment(@CurrentUserId String userId,
+            @RequestBody PaymentConfirmRequest request) {
+        PaymentIntentRecord payment;
         try {
-            String status = paymentService.getPaymentStatus(request.getPaymentIntentId());
-
-            // Update payment status for all orders
-            for (String orderId : request.getOrderIds()) {
-                orderService.updateOrderPaymentStatus(
-                        orderId,
-                        status,
-                        request.getPaymentIntentId());
-            }
+            payment = paymentService.getPayment(request.getPaymentIntentId(), userId);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", e.getMessage()));
+        }
 
-            Map<String, String> response = new HashMap<>();
-            response.put("status", status);
-            response.put("message", "Payment confirmed successfully");
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", payment.getStatus());
+        response.put("orderIds", payment.getOrderIds());
+        response.put("message", "succeeded".equals(payment.getStatus())
+                ? "Payment confirmed successfully"
+                : "Payment is being processed");
+        return ResponseEntity.ok(response);
+    }
 
-            return ResponseEntity.ok(response);
-        } catch (StripeException e) {
-            throw new RuntimeException("Failed to confirm payment: " + e.getMessage());
+    @PostMapping("/webhook")
+    public ResponseEntity<?> handleWebhook(@RequestBody String payload,
+            @RequestHeader(value = "Stripe-Signature", required = false) String signature) {
+        if (!stripeWebhookService.isConfigured()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Webhook endpoint is not configured"));
+        }
+        try {
+            stripeWebhookService.handle(payload, signature);
+            return ResponseEntity.ok().build();
+        } catch (SignatureVerificationException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid signature"));
         }
     }
 }
@@ -0,0 +1,16 @@
+package com.campuseats.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CanteenOrderCount {
+
+    private String canteenId;
+    private String orderStatus;
+    private String orderType;
+    private long count;
+}
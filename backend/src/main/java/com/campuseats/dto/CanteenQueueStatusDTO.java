@@ -16,4 +16,8 @@ public class CanteenQueueStatusDTO {
     private String queueStatus; // HIGH, MEDIUM, LOW, NONE
     private Integer pendingOrderCount;
     private Map<Order.OrderType, Integer> ordersByType;
+    private Map<Order.OrderStatus, Integer> ordersByStatus;
+    // Minutes until a new order would be ready: typical and 90th-percentile
+    private Integer estimatedWaitMinutes;
+    private Integer estimatedWaitMaxMinutes;
 }
@@ -0,0 +1,17 @@
+package com.campuseats.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutSessionResponse {
+
+    private String checkoutSessionId;
+    private List<OrderResponse> orders;
+    private Double totalAmount;
+}
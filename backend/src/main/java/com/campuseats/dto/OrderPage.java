@@ -0,0 +1,18 @@
+package com.campuseats.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPage {
+
+    private List<OrderSummary> items;
+
+    // Null on the last page
+    private String nextCursor;
+}
@@ -20,10 +20,10 @@ public class OrderResponse {
     private String customerPhone;
     private String pickupDate;
     private String pickupTime;
+    private LocalDateTime pickupAt;
     private Double totalAmount;
     private String paymentStatus;
     private String stripePaymentIntentId;
-    private String qrCodeBase64;
     private String orderStatus;
     private String orderType;
     private Boolean hasReview;
@@ -32,6 +32,8 @@ public class OrderResponse {
     private LocalDateTime completedAt;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    // Minutes until the order should be ready; null once it has left the queue
+    private Integer estimatedWaitMinutes;
 
     @Data
     @NoArgsConstructor
@@ -0,0 +1,16 @@
+package com.campuseats.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Dashboard totals over every order, however many pages of history there are
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStats {
+
+    private long totalOrders;
+    private long paidOrders;
+    private double paidAmountToday;
+}
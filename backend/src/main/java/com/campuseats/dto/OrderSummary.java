@@ -0,0 +1,42 @@
+package com.campuseats.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Order as shown in lists. Leaves out the status history, which is only
+ * loaded for the single-order detail.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummary {
+
+    private String id;
+    private String userId;
+    private List<OrderResponse.OrderItemDTO> orderItems;
+    private String customerName;
+    private String customerEmail;
+    private String customerPhone;
+    private String pickupDate;
+    private String pickupTime;
+    private LocalDateTime pickupAt;
+    private Double totalAmount;
+    private String paymentStatus;
+    private String orderStatus;
+    private String orderType;
+    private Boolean hasReview;
+    private LocalDateTime preparedAt;
+    private LocalDateTime readyAt;
+    private LocalDateTime completedAt;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    // Minutes until the order should be ready; null once it has left the queue
+    private Integer estimatedWaitMinutes;
+    // When a scheduled order is shown on the kitchen board; null once it is
+    private LocalDateTime releaseAt;
+}
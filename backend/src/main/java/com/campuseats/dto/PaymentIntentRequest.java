@@ -8,6 +8,8 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class PaymentIntentRequest {
+    private String checkoutSessionId;
+    // Older clients send a single order id and their own total; the total is now computed from the orders
     private String orderId;
     private Double amount;
 }
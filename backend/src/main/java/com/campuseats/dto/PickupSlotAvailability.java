@@ -0,0 +1,17 @@
+package com.campuseats.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PickupSlotAvailability {
+    private LocalDateTime slotStart;
+    private Integer capacity; // null when the canteen sets no limit
+    private Integer reserved;
+    private Integer available; // null when the canteen sets no limit
+}
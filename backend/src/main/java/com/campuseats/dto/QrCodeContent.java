@@ -0,0 +1,17 @@
+package com.campuseats.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Signed pickup token for an order and the time the counter stops accepting it
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QrCodeContent {
+
+    private String token;
+    private Instant expiresAt;
+}
@@ -11,7 +11,7 @@ import lombok.NoArgsConstructor;
 public class VerifyQRRequest {
 
     @NotBlank(message = "Scanned data is required")
-    private String scannedData; // The order ID from the QR code
+    private String scannedData; // The signed token (or, for older codes, the order ID) from the QR code
 
     @NotBlank(message = "Canteen ID is required")
     private String canteenId; // To verify the order belongs to this canteen
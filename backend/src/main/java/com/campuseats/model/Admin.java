@@ -33,6 +33,9 @@ public class Admin {
 
     private boolean enabled = true;
 
+    // Bumped whenever previously issued JWTs must stop being accepted
+    private int tokenVersion = 0;
+
     @CreatedDate
     private LocalDateTime createdAt;
 
@@ -12,8 +12,10 @@ import org.springframework.data.mongodb.core.index.Indexed;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Document(collection = "canteens")
@@ -56,6 +58,12 @@ public class Canteen {
     private boolean pickupAvailable = true;
     private Integer seatingCapacity;
 
+    // Scheduled pickup slots: length in minutes, orders per slot (null = no limit),
+    // and per-slot capacities keyed by slot start time ("HH:mm")
+    private Integer pickupSlotMinutes = 15;
+    private Integer pickupSlotCapacity;
+    private Map<String, Integer> pickupSlotCapacityOverrides = new HashMap<>();
+
     // Description & Categories
     private String description;
     private Set<String> cuisineTypes = new HashSet<>(); // INDIAN, CHINESE, CONTINENTAL, BEVERAGES, etc.
@@ -39,6 +39,9 @@ public class CanteenOwner {
     private boolean enabled = true;
     private boolean emailVerified = false;
 
+    // Bumped whenever previously issued JWTs must stop being accepted
+    private int tokenVersion = 0;
+
     // Approval Workflow
     private String approvalStatus = "PENDING"; // PENDING, APPROVED, REJECTED
     private String approvedBy; // Admin ID who approved/rejected
@@ -0,0 +1,43 @@
+package com.campuseats.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Outcome of a request sent with an Idempotency-Key, stored so retries of the
+ * same request are answered without running it again. The id combines the
+ * operation, the caller and the client-supplied key.
+ */
+@Document(collection = "idempotency_records")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    private String id;
+
+    // SHA-256 of the request body, to refuse reusing a key for a different request
+    private String requestHash;
+
+    private Status status;
+
+    private Integer responseStatus;
+    private String responseBody;
+
+    private Instant lockedAt;
+
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expiresAt;
+
+    public enum Status {
+        IN_PROGRESS,
+        COMPLETED
+    }
+}
@@ -0,0 +1,85 @@
+package com.campuseats.model;
+
+import com.campuseats.security.PrincipalType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Maps a login key (username for users, email for canteen owners and admins)
+ * to the account it belongs to, so login resolution is a single indexed
+ * lookup instead of probing users, canteen_owners and admins in turn.
+ *
+ * Also carries a copy of the account's credentials, so login reads this
+ * document only. Identities written before the copy existed have a null
+ * password and are filled in on the next login.
+ */
+@Document(collection = "identities")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Identity {
+
+    @Id
+    private String id;
+
+    @Indexed(unique = true)
+    private String loginKey;
+
+    private PrincipalType principalType;
+
+    private String principalId;
+
+    private String password;
+
+    private Set<String> authorities;
+
+    private int tokenVersion;
+
+    private boolean enabled;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+
+    public static Identity of(User user) {
+        return of(user.getUsername(), PrincipalType.USER, user.getId(), user.getPassword(),
+                roleAuthorities(user.getRoles()), user.getTokenVersion(), user.isEnabled());
+    }
+
+    public static Identity of(CanteenOwner owner) {
+        return of(owner.getEmail(), PrincipalType.CANTEEN_OWNER, owner.getId(), owner.getPassword(),
+                Set.of("ROLE_CANTEEN_OWNER"), owner.getTokenVersion(), owner.isEnabled());
+    }
+
+    public static Identity of(Admin admin) {
+        return of(admin.getEmail(), PrincipalType.ADMIN, admin.getId(), admin.getPassword(),
+                roleAuthorities(admin.getRoles()), admin.getTokenVersion(), admin.isEnabled());
+    }
+
+    private static Identity of(String loginKey, PrincipalType principalType, String principalId,
+            String password, Set<String> authorities, int tokenVersion, boolean enabled) {
+        Identity identity = new Identity();
+        identity.setLoginKey(loginKey);
+        identity.setPrincipalType(principalType);
+        identity.setPrincipalId(principalId);
+        identity.setPassword(password);
+        identity.setAuthorities(authorities);
+        identity.setTokenVersion(tokenVersion);
+        identity.setEnabled(enabled);
+        return identity;
+    }
+
+    private static Set<String> roleAuthorities(Set<String> roles) {
+        return roles.stream()
+                .map(role -> "ROLE_" + role)
+                .collect(Collectors.toSet());
+    }
+}
@@ -36,6 +36,9 @@ public class LoyaltyAccount {
     private Map<String, Double> weeklySpending = new HashMap<>();
     private LocalDateTime weekStart;
 
+    // Ids of the most recent payments credited, so a payment is never credited twice
+    private List<String> earnedFor = new ArrayList<>();
+
     // Recent transaction history (embedded, kept to last 50)
     private List<LoyaltyTransaction> transactions = new ArrayList<>();
 
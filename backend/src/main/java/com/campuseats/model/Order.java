@@ -7,6 +7,7 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 
 import java.time.LocalDateTime;
@@ -14,6 +15,15 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Document(collection = "orders")
+// Canteen order board and queue counts: equality on canteen, then status, newest first
+@CompoundIndex(name = "canteen_status_created_idx", def = "{'canteenIds': 1, 'orderStatus': 1, 'createdAt': -1}")
+// Canteen order history, paged newest first on (createdAt, _id); a status filter is applied while scanning
+@CompoundIndex(name = "canteen_created_idx", def = "{'canteenIds': 1, 'createdAt': -1, '_id': -1}")
+// Unpaid scheduled orders still holding a pickup slot; paid and released orders drop out of it
+@CompoundIndex(name = "pickup_slot_hold_idx", def = "{'pickupSlotId': 1, 'createdAt': 1}",
+        partialFilter = "{'pickupSlotId': {'$exists': true}}")
+// User order history, paged newest first on (createdAt, _id)
+@CompoundIndex(name = "user_created_idx", def = "{'userId': 1, 'createdAt': -1, '_id': -1}")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -25,14 +35,31 @@ public class Order {
     @Indexed
     private String userId;
 
+    // Shared by all per-canteen orders created from one checkout
+    @Indexed
+    private String checkoutSessionId;
+
     private List<OrderItem> orderItems = new ArrayList<>();
 
+    // Distinct orderItems.canteenId values, kept top-level so it can lead a compound index
+    private List<String> canteenIds = new ArrayList<>();
+
     private String customerName;
     private String customerEmail;
     private String customerPhone;
     private String pickupDate;
     private String pickupTime;
 
+    // pickupDate and pickupTime as one typed, queryable timestamp
+    @Indexed
+    private LocalDateTime pickupAt;
+
+    // Pickup slot this scheduled order holds a place in, until it is paid or the hold lapses
+    private String pickupSlotId;
+
+    // Slot given up because the order stayed unpaid; taken again if the payment still arrives
+    private String releasedPickupSlotId;
+
     private Double totalAmount;
     private Double discountAmount = 0.0;
     private Integer loyaltyPointsRedeemed = 0;
@@ -42,8 +69,8 @@ public class Order {
 
     private String stripePaymentIntentId;
 
-    // QR Code for order pickup (Base64 encoded image)
-    private String qrCodeBase64;
+    // Marks the payment status write that last changed this order, so its caller can find them again
+    private String paymentUpdateId;
 
     // Order status: PENDING, PREPARING, READY, COMPLETED
     private OrderStatus orderStatus = OrderStatus.PENDING;
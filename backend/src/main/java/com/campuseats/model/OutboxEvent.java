@@ -0,0 +1,62 @@
+package com.campuseats.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Side effect recorded next to a state change and carried out later by
+ * OutboxService, e.g. loyalty accrual and notifications after a payment.
+ * The id is derived from the event type and its subject, so recording the
+ * same event twice keeps a single entry.
+ */
+@Document(collection = "outbox_events")
+// Dispatcher polling: due events of one status, oldest first
+@CompoundIndex(name = "status_next_attempt_idx", def = "{'status': 1, 'nextAttemptAt': 1}")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    private String id;
+
+    private String type;
+
+    private Map<String, Object> payload = new HashMap<>();
+
+    private Status status;
+
+    private int attempts;
+
+    // When the event may be (re)tried; for PROCESSING events, when the claim lapses
+    private Instant nextAttemptAt;
+
+    // Handler steps already carried out, skipped when the event is retried
+    private List<String> completedSteps = new ArrayList<>();
+
+    private String lastError;
+
+    private Instant createdAt;
+
+    // Processed events are removed a week after completion; DEAD events are kept
+    @Indexed(expireAfterSeconds = 604800)
+    private Instant completedAt;
+
+    public enum Status {
+        PENDING,
+        PROCESSING,
+        DONE,
+        DEAD
+    }
+}
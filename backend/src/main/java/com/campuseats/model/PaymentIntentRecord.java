@@ -0,0 +1,46 @@
+package com.campuseats.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Local copy of a Stripe PaymentIntent and the orders it pays for, keyed by
+ * the intent id. The order ids are fixed when the intent is created, and the
+ * status follows Stripe's webhook events, so confirming a payment never asks
+ * Stripe or trusts order ids sent by the client.
+ */
+@Document(collection = "payment_intents")
+// Background sync: unsettled intents by age
+@CompoundIndex(name = "status_created_idx", def = "{'status': 1, 'createdAt': 1}")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentIntentRecord {
+
+    @Id
+    private String id;
+
+    private String userId;
+    private String checkoutSessionId;
+    private List<String> orderIds = new ArrayList<>();
+
+    // Smallest currency unit, as sent to Stripe
+    private Long amount;
+
+    // Stripe status: requires_payment_method, processing, succeeded, canceled, ...
+    private String status;
+
+    // Creation time of the newest Stripe event applied; older events are ignored
+    private Instant lastEventAt;
+
+    private Instant createdAt;
+    private Instant updatedAt;
+}
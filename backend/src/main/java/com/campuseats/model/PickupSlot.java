@@ -0,0 +1,38 @@
+package com.campuseats.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Number of scheduled orders holding one pickup slot at one canteen. The id
+ * combines the canteen and the slot start, and the count only ever moves
+ * through conditional $inc updates, so concurrent checkouts on any node
+ * never exceed the slot's capacity.
+ */
+@Document(collection = "pickup_slots")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PickupSlot {
+
+    @Id
+    private String id;
+
+    private String canteenId;
+
+    @Indexed
+    private LocalDateTime slotStart;
+
+    private int reserved;
+
+    // Slots are dropped a couple of days after they pass
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expiresAt;
+}
@@ -0,0 +1,32 @@
+package com.campuseats.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Denylist entry for JWTs. The id is either "sub:" + subject, which revokes
+ * every token issued to that subject before revokedAt, or "jti:" + token id,
+ * which revokes a single token. Entries expire once no token they cover can
+ * still be valid.
+ */
+@Document(collection = "revoked_tokens")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+
+    @Id
+    private String id;
+
+    @Indexed
+    private Instant revokedAt;
+
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expiresAt;
+}
@@ -0,0 +1,30 @@
+package com.campuseats.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Id of a Stripe webhook event that has been applied, so redeliveries are
+ * acknowledged without being processed again. Stripe stops retrying after
+ * three days; records are kept for a week.
+ */
+@Document(collection = "stripe_webhook_events")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StripeWebhookEvent {
+
+    @Id
+    private String id;
+
+    private String type;
+
+    @Indexed(expireAfterSeconds = 604800)
+    private Instant processedAt;
+}
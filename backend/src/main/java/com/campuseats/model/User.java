@@ -40,6 +40,9 @@ public class User {
 
     private boolean enabled = true;
 
+    // Bumped whenever previously issued JWTs must stop being accepted
+    private int tokenVersion = 0;
+
     @CreatedDate
     private LocalDateTime createdAt;
 
@@ -4,6 +4,7 @@ import com.campuseats.model.Admin;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +12,6 @@ public interface AdminRepository extends MongoRepository<Admin, String> {
     Optional<Admin> findByEmail(String email);
 
     boolean existsByEmail(String email);
+
+    List<Admin> findByTokenVersionGreaterThan(int tokenVersion);
 }
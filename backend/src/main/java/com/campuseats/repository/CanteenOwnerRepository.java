@@ -19,4 +19,6 @@ public interface CanteenOwnerRepository extends MongoRepository<CanteenOwner, St
     List<CanteenOwner> findByApprovalStatus(String approvalStatus);
 
     long countByApprovalStatus(String approvalStatus);
+
+    List<CanteenOwner> findByTokenVersionGreaterThan(int tokenVersion);
 }
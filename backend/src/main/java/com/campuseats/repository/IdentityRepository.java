@@ -0,0 +1,13 @@
+package com.campuseats.repository;
+
+import com.campuseats.model.Identity;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface IdentityRepository extends MongoRepository<Identity, String> {
+
+    Optional<Identity> findByLoginKey(String loginKey);
+}
@@ -1,6 +1,8 @@
 package com.campuseats.repository;
 
+import com.campuseats.dto.CanteenOrderCount;
 import com.campuseats.model.Order;
+import org.springframework.data.mongodb.repository.Aggregation;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
@@ -16,21 +18,45 @@ public interface OrderRepository extends MongoRepository<Order, String> {
 
         Optional<Order> findByIdAndUserId(String id, String userId);
 
-        List<Order> findByOrderItemsCanteenIdOrderByCreatedAtDesc(String canteenId);
+        List<Order> findByCheckoutSessionIdAndUserId(String checkoutSessionId, String userId);
 
         // Weekly spending analysis - find paid orders after a given date
         List<Order> findByUserIdAndPaymentStatusAndCreatedAtAfter(
                         String userId, String paymentStatus, LocalDateTime after);
 
-        // Queue status methods - only count orders with successful payment
-        Long countByOrderItemsCanteenIdAndOrderStatusInAndPaymentStatus(
-                        String canteenId,
-                        List<Order.OrderStatus> statuses,
-                        String paymentStatus);
-
-        Long countByOrderItemsCanteenIdAndOrderStatusInAndOrderTypeAndPaymentStatus(
-                        String canteenId,
-                        List<Order.OrderStatus> statuses,
-                        Order.OrderType orderType,
+        // Dashboard totals
+        long countByUserId(String userId);
+
+        long countByUserIdAndPaymentStatus(String userId, String paymentStatus);
+
+        long countByCanteenIds(String canteenId);
+
+        long countByCanteenIdsAndPaymentStatus(String canteenId, String paymentStatus);
+
+        @Aggregation(pipeline = {
+                        "{ '$match': { 'canteenIds': ?0, 'paymentStatus': ?1, 'createdAt': { '$gte': ?2 } } }",
+                        "{ '$group': { '_id': null, 'total': { '$sum': '$totalAmount' } } }",
+                        "{ '$project': { '_id': 0, 'total': 1 } }"
+        })
+        Double sumCanteenAmountSince(String canteenId, String paymentStatus, LocalDateTime since);
+
+        @Aggregation(pipeline = {
+                        "{ '$match': { 'userId': ?0, 'paymentStatus': ?1, 'createdAt': { '$gte': ?2 } } }",
+                        "{ '$group': { '_id': null, 'total': { '$sum': '$totalAmount' } } }",
+                        "{ '$project': { '_id': 0, 'total': 1 } }"
+        })
+        Double sumUserAmountSince(String userId, String paymentStatus, LocalDateTime since);
+
+        // Queue status - paid orders in the given statuses, counted per canteen, status and order type in one pass
+        @Aggregation(pipeline = {
+                        "{ '$match': { 'canteenIds': { '$in': ?0 }, 'orderStatus': { '$in': ?1 }, 'paymentStatus': ?2 } }",
+                        "{ '$unwind': '$canteenIds' }",
+                        "{ '$match': { 'canteenIds': { '$in': ?0 } } }",
+                        "{ '$group': { '_id': { 'canteenId': '$canteenIds', 'orderStatus': '$orderStatus', 'orderType': '$orderType' }, 'count': { '$sum': 1 } } }",
+                        "{ '$project': { '_id': 0, 'canteenId': '$_id.canteenId', 'orderStatus': '$_id.orderStatus', 'orderType': '$_id.orderType', 'count': 1 } }"
+        })
+        List<CanteenOrderCount> countByCanteenStatusAndOrderType(
+                        List<String> canteenIds,
+                        List<String> statuses,
                         String paymentStatus);
 }
@@ -0,0 +1,9 @@
+package com.campuseats.repository;
+
+import com.campuseats.model.PaymentIntentRecord;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PaymentIntentRecordRepository extends MongoRepository<PaymentIntentRecord, String> {
+}
@@ -0,0 +1,14 @@
+package com.campuseats.repository;
+
+import com.campuseats.model.RevokedToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends MongoRepository<RevokedToken, String> {
+
+    List<RevokedToken> findByRevokedAtGreaterThanEqual(Instant since);
+}
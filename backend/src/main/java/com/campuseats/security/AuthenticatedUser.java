@@ -0,0 +1,61 @@
+package com.campuseats.security;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Principal placed in the security context for every authenticated request.
+ * Unlike Spring's default User it carries the Mongo id and account type, so
+ * callers never need to look the account up again by username.
+ */
+@Getter
+public class AuthenticatedUser implements UserDetails {
+
+    private final String id;
+    private final String username;
+    private final String password;
+    private final PrincipalType principalType;
+    private final int tokenVersion;
+    private final boolean enabled;
+    private final Collection<? extends GrantedAuthority> authorities;
+
+    public AuthenticatedUser(String id,
+            String username,
+            String password,
+            PrincipalType principalType,
+            int tokenVersion,
+            boolean enabled,
+            Collection<? extends GrantedAuthority> authorities) {
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.principalType = principalType;
+        this.tokenVersion = tokenVersion;
+        this.enabled = enabled;
+        this.authorities = Collections.unmodifiableCollection(authorities);
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return principalType + ":" + username;
+    }
+}
@@ -0,0 +1,11 @@
+package com.campuseats.security;
+
+/**
+ * Thrown when a scanned pickup QR code is malformed, forged or expired.
+ */
+public class InvalidQrTokenException extends RuntimeException {
+
+    public InvalidQrTokenException(String message) {
+        super(message);
+    }
+}
@@ -2,26 +2,79 @@ package com.campuseats.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
 @Component
 public class JwtTokenProvider {
 
+    private static final String CLAIM_USER_ID = "uid";
+    private static final String CLAIM_PRINCIPAL_TYPE = "typ";
+    private static final String CLAIM_ROLES = "roles";
+    private static final String CLAIM_TOKEN_VERSION = "ver";
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
     @Value("${jwt.expiration}")
     private long jwtExpirationMs;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+    @Value("${jwt.verified-cache.max-size:5000}")
+    private int verifiedCacheMaxSize;
+
+    private final MeterRegistry meterRegistry;
+
+    // Derived once; both are immutable and thread-safe
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    // Verified claims keyed by SHA-256 of the token, held until the token expires
+    private Map<String, VerifiedClaims> verifiedCache;
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    public JwtTokenProvider(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+
+        verifiedCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedClaims> eldest) {
+                return size() > verifiedCacheMaxSize;
+            }
+        };
+
+        FunctionCounter.builder("security.jwt.verified.cache.hits", cacheHits, LongAdder::sum)
+                .register(meterRegistry);
+        FunctionCounter.builder("security.jwt.verified.cache.misses", cacheMisses, LongAdder::sum)
+                .register(meterRegistry);
     }
 
     public String generateToken(Authentication authentication) {
@@ -29,31 +82,91 @@ public class JwtTokenProvider {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .setExpiration(expiryDate);
+
+        // Embed everything the filter needs to rebuild the principal without a lookup
+        if (userDetails instanceof AuthenticatedUser user) {
+            builder.claim(CLAIM_USER_ID, user.getId())
+                    .claim(CLAIM_PRINCIPAL_TYPE, user.getPrincipalType().name())
+                    .claim(CLAIM_ROLES, user.getAuthorities().stream()
+                            .map(GrantedAuthority::getAuthority)
+                            .collect(Collectors.toList()))
+                    .claim(CLAIM_TOKEN_VERSION, user.getTokenVersion());
+        }
+
+        return builder
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Verifies the token signature and expiry and returns its claims, or null
+     * if the token is not valid. A token that has already been verified is
+     * served from memory until it expires, so clients polling with the same
+     * token pay for HMAC and JSON parsing once.
+     */
+    public Claims verifyToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+
+        String cacheKey = hash(token);
+        long now = System.currentTimeMillis();
+        synchronized (verifiedCache) {
+            VerifiedClaims cached = verifiedCache.get(cacheKey);
+            if (cached != null) {
+                if (cached.expiresAt > now) {
+                    cacheHits.increment();
+                    return cached.claims;
+                }
+                verifiedCache.remove(cacheKey);
+            }
+        }
+        cacheMisses.increment();
 
-        return claims.getSubject();
+        Claims claims = parse(token);
+        if (claims != null && claims.getExpiration() != null) {
+            synchronized (verifiedCache) {
+                verifiedCache.put(cacheKey, new VerifiedClaims(claims, claims.getExpiration().getTime()));
+            }
+        }
+        return claims;
     }
 
-    public boolean validateToken(String authToken) {
+    /**
+     * Rebuilds the principal from the claims of a token issued with account
+     * details. Returns null for older tokens that only carry a subject.
+     */
+    public AuthenticatedUser getPrincipalFromClaims(Claims claims) {
+        String userId = claims.get(CLAIM_USER_ID, String.class);
+        String type = claims.get(CLAIM_PRINCIPAL_TYPE, String.class);
+        List<?> roles = claims.get(CLAIM_ROLES, List.class);
+        Integer version = claims.get(CLAIM_TOKEN_VERSION, Integer.class);
+        if (userId == null || type == null || roles == null || version == null) {
+            return null;
+        }
+
+        List<SimpleGrantedAuthority> authorities = roles.stream()
+                .map(role -> new SimpleGrantedAuthority(String.valueOf(role)))
+                .collect(Collectors.toList());
+
+        return new AuthenticatedUser(
+                userId,
+                claims.getSubject(),
+                null,
+                PrincipalType.valueOf(type),
+                version,
+                true,
+                authorities);
+    }
+
+    private Claims parse(String authToken) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(authToken);
-            return true;
+            return parser.parseClaimsJws(authToken).getBody();
         } catch (SecurityException | MalformedJwtException ex) {
             System.err.println("Invalid JWT signature");
         } catch (ExpiredJwtException ex) {
@@ -63,6 +176,25 @@ public class JwtTokenProvider {
         } catch (IllegalArgumentException ex) {
             System.err.println("JWT claims string is empty");
         }
-        return false;
+        return null;
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class VerifiedClaims {
+        private final Claims claims;
+        private final long expiresAt;
+
+        private VerifiedClaims(Claims claims, long expiresAt) {
+            this.claims = claims;
+            this.expiresAt = expiresAt;
+        }
     }
 }
@@ -0,0 +1,16 @@
+package com.campuseats.security;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when the login pool and its queue are full, so the caller can
+ * answer 503 immediately instead of tying up a request thread.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class LoginCapacityExceededException extends RuntimeException {
+
+    public LoginCapacityExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,111 @@
+package com.campuseats.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs password verification (BCrypt) on a dedicated, size-limited pool so a
+ * burst of logins cannot starve Tomcat threads serving orders and carts.
+ * When both the pool and its queue are full, logins fail fast with
+ * {@link LoginCapacityExceededException}.
+ */
+@Component
+@Slf4j
+public class LoginExecutor {
+
+    private final AuthenticationManager authenticationManager;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+
+    private final Timer hashingTimer;
+    private final Counter rejectedCounter;
+
+    public LoginExecutor(@Lazy AuthenticationManager authenticationManager,
+            @Value("${security.login.pool-size:4}") int poolSize,
+            @Value("${security.login.queue-capacity:50}") int queueCapacity,
+            @Value("${security.login.timeout-ms:10000}") long timeoutMs,
+            MeterRegistry meterRegistry) {
+        this.authenticationManager = authenticationManager;
+        this.timeoutMs = timeoutMs;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "login-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.hashingTimer = Timer.builder("security.login.hashing")
+                .description("Time spent verifying credentials on the login pool")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("security.login.rejected")
+                .description("Logins refused because the login pool was saturated")
+                .register(meterRegistry);
+        Gauge.builder("security.login.queue.depth", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("security.login.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Authenticates the credentials on the login pool and waits for the
+     * result. Authentication failures are rethrown unchanged.
+     */
+    public Authentication authenticate(Authentication credentials) {
+        Future<Authentication> future;
+        try {
+            future = executor.submit(() -> hashingTimer.recordCallable(
+                    () -> authenticationManager.authenticate(credentials)));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new LoginCapacityExceededException("Too many login attempts in progress, please retry shortly");
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Login failed", e.getCause());
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            throw new LoginCapacityExceededException("Login timed out, please retry shortly");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new LoginCapacityExceededException("Login interrupted");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,136 @@
+package com.campuseats.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Size-bounded, TTL-evicting cache of resolved principals keyed by JWT subject.
+ * Keeps JwtAuthenticationFilter from hitting the users / canteen_owners / admins
+ * collections on every authenticated request.
+ */
+@Component
+@Slf4j
+public class PrincipalCache {
+
+    private final int maxSize;
+    private final long ttlMs;
+
+    // Access-ordered so the eldest entry is always the least recently used one
+    private final LinkedHashMap<String, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // Bumped on every invalidation so a load that raced with it is not cached
+    private long generation;
+
+    public PrincipalCache(@Value("${security.principal-cache.max-size:10000}") int maxSize,
+            @Value("${security.principal-cache.ttl-seconds:300}") long ttlSeconds,
+            MeterRegistry meterRegistry) {
+        this.maxSize = maxSize;
+        this.ttlMs = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > PrincipalCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        FunctionCounter.builder("security.principal.cache.hits", hits, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("security.principal.cache.misses", misses, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("security.principal.cache.evictions", evictions, LongAdder::sum)
+                .register(meterRegistry);
+        Gauge.builder("security.principal.cache.size", this, PrincipalCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached principal for the subject, loading it with the given
+     * loader on a miss or after the entry has expired.
+     */
+    public UserDetails get(String subject, Function<String, UserDetails> loader) {
+        long now = System.currentTimeMillis();
+        long loadGeneration;
+        synchronized (entries) {
+            loadGeneration = generation;
+            Entry entry = entries.get(subject);
+            if (entry != null) {
+                if (entry.expiresAt > now) {
+                    hits.increment();
+                    return entry.userDetails;
+                }
+                entries.remove(subject);
+                evictions.increment();
+            }
+        }
+
+        misses.increment();
+        // Load outside the lock so a slow Mongo query does not block other requests
+        UserDetails loaded = loader.apply(subject);
+
+        synchronized (entries) {
+            if (generation == loadGeneration) {
+                entries.put(subject, new Entry(loaded, now + ttlMs));
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Drops the cached principal so the next request reloads it from the
+     * database. Call whenever an account's enabled flag or roles change.
+     */
+    public void invalidate(String subject) {
+        if (subject == null) {
+            return;
+        }
+        synchronized (entries) {
+            generation++;
+            if (entries.remove(subject) != null) {
+                log.debug("Invalidated cached principal for {}", subject);
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private static final class Entry {
+        private final UserDetails userDetails;
+        private final long expiresAt;
+
+        private Entry(UserDetails userDetails, long expiresAt) {
+            this.userDetails = userDetails;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
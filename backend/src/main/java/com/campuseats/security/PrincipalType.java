@@ -0,0 +1,11 @@
+package com.campuseats.security;
+
+/**
+ * Kind of account a principal was loaded from. Carried in the JWT so the
+ * filter knows which collection an id belongs to without a lookup.
+ */
+public enum PrincipalType {
+    USER,
+    CANTEEN_OWNER,
+    ADMIN
+}
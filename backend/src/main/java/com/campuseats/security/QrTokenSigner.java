@@ -0,0 +1,104 @@
+package com.campuseats.security;
+
+import jakarta.annotation.PostConstruct;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Signs and verifies the payload of pickup QR codes. A token is
+ * base64url(version, order id, canteen id, expiry) + "." + base64url(truncated
+ * HMAC-SHA256), about 60 characters, so the code stays small and a scan can
+ * be checked without touching the database.
+ */
+@Component
+public class QrTokenSigner {
+
+    private static final byte VERSION = 1;
+    private static final int PAYLOAD_LENGTH = 1 + 12 + 12 + 8;
+    private static final int MAC_LENGTH = 16;
+
+    @Value("${qr.token.secret}")
+    private String secret;
+
+    private SecretKeySpec key;
+
+    private final ThreadLocal<Mac> mac = ThreadLocal.withInitial(() -> {
+        try {
+            Mac instance = Mac.getInstance("HmacSHA256");
+            instance.init(key);
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    });
+
+    @PostConstruct
+    public void init() {
+        key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+    }
+
+    public String sign(String orderId, String canteenId, Instant expiresAt) {
+        byte[] payload = ByteBuffer.allocate(PAYLOAD_LENGTH)
+                .put(VERSION)
+                .put(new ObjectId(orderId).toByteArray())
+                .put(new ObjectId(canteenId).toByteArray())
+                .putLong(expiresAt.getEpochSecond())
+                .array();
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(payload) + "." + encoder.encodeToString(mac(payload));
+    }
+
+    /**
+     * Checks the signature and expiry of a token.
+     *
+     * @throws InvalidQrTokenException if the token is malformed, forged or expired
+     */
+    public QrToken verify(String token) {
+        int dot = token.indexOf('.');
+        if (dot < 0) {
+            throw new InvalidQrTokenException("Invalid QR code");
+        }
+
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = Base64.getUrlDecoder().decode(token.substring(0, dot));
+            signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidQrTokenException("Invalid QR code");
+        }
+        if (payload.length != PAYLOAD_LENGTH || payload[0] != VERSION
+                || !MessageDigest.isEqual(mac(payload), signature)) {
+            throw new InvalidQrTokenException("Invalid QR code");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(payload, 1, PAYLOAD_LENGTH - 1);
+        byte[] orderId = new byte[12];
+        byte[] canteenId = new byte[12];
+        buffer.get(orderId).get(canteenId);
+        Instant expiresAt = Instant.ofEpochSecond(buffer.getLong());
+        if (Instant.now().isAfter(expiresAt)) {
+            throw new InvalidQrTokenException("QR code has expired");
+        }
+
+        return new QrToken(new ObjectId(orderId).toHexString(), new ObjectId(canteenId).toHexString(), expiresAt);
+    }
+
+    private byte[] mac(byte[] payload) {
+        return Arrays.copyOf(mac.get().doFinal(payload), MAC_LENGTH);
+    }
+
+    public record QrToken(String orderId, String canteenId, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,101 @@
+package com.campuseats.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the token-bucket policies from {@link RateLimitProperties}. Runs
+ * right after JwtAuthenticationFilter so authenticated clients are limited
+ * per account and anonymous ones per IP address.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitProperties properties;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final List<Route> routes = new ArrayList<>();
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        for (RateLimitProperties.Policy policy : properties.getPolicies()) {
+            routes.add(new Route(
+                    policy,
+                    new TokenBucketRateLimiter(
+                            policy.getCapacity(),
+                            policy.getRefillPerSecond(),
+                            properties.getStripes(),
+                            properties.getMaxKeysPerStripe()),
+                    Counter.builder("http.ratelimit.rejected")
+                            .tag("policy", policy.getName())
+                            .register(meterRegistry)));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        Route route = properties.isEnabled() ? match(request) : null;
+        if (route != null) {
+            long waitNanos = route.limiter.tryAcquire(clientKey(request), System.nanoTime());
+            if (waitNanos > 0) {
+                route.rejected.increment();
+                long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999));
+                response.setStatus(429);
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+                response.setContentType("application/json");
+                response.getWriter().write("{\"error\":\"Too many requests\"}");
+                return;
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private Route match(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        for (Route route : routes) {
+            String method = route.policy.getMethod();
+            if ((method == null || method.equalsIgnoreCase(request.getMethod()))
+                    && pathMatcher.match(route.policy.getPattern(), path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return user.getId();
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static final class Route {
+        private final RateLimitProperties.Policy policy;
+        private final TokenBucketRateLimiter limiter;
+        private final Counter rejected;
+
+        private Route(RateLimitProperties.Policy policy, TokenBucketRateLimiter limiter, Counter rejected) {
+            this.policy = policy;
+            this.limiter = limiter;
+            this.rejected = rejected;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.campuseats.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-route token-bucket policies, bound from rate-limit.* properties.
+ * The first policy whose method and path pattern match a request applies.
+ */
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+@Data
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Lock stripes per policy; more stripes means less contention between clients
+    private int stripes = 64;
+
+    // Idle buckets are swept once a stripe holds more keys than this
+    private int maxKeysPerStripe = 512;
+
+    private List<Policy> policies = new ArrayList<>();
+
+    @Data
+    public static class Policy {
+        private String name;
+        private String method; // null matches any method
+        private String pattern;
+        private int capacity;
+        private double refillPerSecond;
+    }
+}
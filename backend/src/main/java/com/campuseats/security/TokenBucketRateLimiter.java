@@ -0,0 +1,94 @@
+package com.campuseats.security;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Token buckets for one rate-limit policy, keyed by client. Keys are spread
+ * over a fixed set of lock stripes so concurrent clients rarely contend, and
+ * each bucket is two primitive fields updated in place.
+ */
+public class TokenBucketRateLimiter {
+
+    private final double capacity;
+    private final double refillPerNano;
+    private final int maxKeysPerStripe;
+    private final Stripe[] stripes;
+
+    public TokenBucketRateLimiter(int capacity, double refillPerSecond, int stripeCount, int maxKeysPerStripe) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / 1_000_000_000d;
+        this.maxKeysPerStripe = maxKeysPerStripe;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Takes one token for the key.
+     *
+     * @return 0 if the request may proceed, otherwise the nanoseconds until
+     *         the next token becomes available
+     */
+    public long tryAcquire(String key, long nowNanos) {
+        Stripe stripe = stripes[(key.hashCode() & 0x7fffffff) % stripes.length];
+        synchronized (stripe) {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                if (stripe.buckets.size() >= maxKeysPerStripe) {
+                    sweepIdle(stripe, nowNanos);
+                    if (stripe.buckets.size() >= maxKeysPerStripe * 2) {
+                        // Too many active clients to track; start this stripe over rather than grow unbounded
+                        stripe.buckets.clear();
+                    }
+                }
+                bucket = new Bucket(capacity, nowNanos);
+                stripe.buckets.put(key, bucket);
+            } else {
+                refill(bucket, nowNanos);
+            }
+
+            if (bucket.tokens >= 1d) {
+                bucket.tokens -= 1d;
+                return 0;
+            }
+            return (long) Math.ceil((1d - bucket.tokens) / refillPerNano);
+        }
+    }
+
+    private void refill(Bucket bucket, long nowNanos) {
+        long elapsed = nowNanos - bucket.lastRefillNanos;
+        if (elapsed > 0) {
+            bucket.tokens = Math.min(capacity, bucket.tokens + elapsed * refillPerNano);
+            bucket.lastRefillNanos = nowNanos;
+        }
+    }
+
+    // A bucket that would be full again carries no state worth keeping
+    private void sweepIdle(Stripe stripe, long nowNanos) {
+        Iterator<Map.Entry<String, Bucket>> it = stripe.buckets.entrySet().iterator();
+        while (it.hasNext()) {
+            Bucket bucket = it.next().getValue();
+            refill(bucket, nowNanos);
+            if (bucket.tokens >= capacity) {
+                it.remove();
+            }
+        }
+    }
+
+    private static final class Stripe {
+        private final Map<String, Bucket> buckets = new HashMap<>();
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long lastRefillNanos;
+
+        private Bucket(double tokens, long lastRefillNanos) {
+            this.tokens = tokens;
+            this.lastRefillNanos = lastRefillNanos;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.campuseats.security;
+
+import com.campuseats.repository.AdminRepository;
+import com.campuseats.repository.CanteenOwnerRepository;
+import com.campuseats.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory view of per-account token versions. Only accounts whose version
+ * has ever been bumped are tracked; everyone else is implicitly at version 0,
+ * so checking a token is a single map lookup.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TokenVersionRegistry {
+
+    private final UserRepository userRepository;
+    private final CanteenOwnerRepository canteenOwnerRepository;
+    private final AdminRepository adminRepository;
+
+    private final Map<String, Integer> versions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void load() {
+        try {
+            userRepository.findByTokenVersionGreaterThan(0)
+                    .forEach(u -> update(PrincipalType.USER, u.getId(), u.getTokenVersion()));
+            canteenOwnerRepository.findByTokenVersionGreaterThan(0)
+                    .forEach(o -> update(PrincipalType.CANTEEN_OWNER, o.getId(), o.getTokenVersion()));
+            adminRepository.findByTokenVersionGreaterThan(0)
+                    .forEach(a -> update(PrincipalType.ADMIN, a.getId(), a.getTokenVersion()));
+            log.info("Loaded {} token versions", versions.size());
+        } catch (Exception e) {
+            log.warn("Could not load token versions: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Records the account's current token version. Call after the new
+     * version has been persisted on the account document.
+     */
+    public void update(PrincipalType type, String accountId, int version) {
+        versions.merge(key(type, accountId), version, Math::max);
+    }
+
+    public boolean isCurrent(PrincipalType type, String accountId, int tokenVersion) {
+        Integer current = versions.get(key(type, accountId));
+        return current == null || tokenVersion >= current;
+    }
+
+    private static String key(PrincipalType type, String accountId) {
+        return type.name() + ":" + accountId;
+    }
+}
@@ -0,0 +1,180 @@
+package com.campuseats.service;
+
+import com.campuseats.model.Order;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Paid orders that are still PENDING, PREPARING or READY, grouped by canteen.
+ * Kitchen dashboards and pickup verification read from here instead of
+ * querying order history. OrderService applies every change it persists;
+ * a periodic reconciliation against Mongo repairs anything missed, such as
+ * writes made by another instance.
+ */
+@Component
+@Slf4j
+public class ActiveOrderIndex {
+
+    private static final Set<Order.OrderStatus> ACTIVE_STATUSES = EnumSet.of(
+            Order.OrderStatus.PENDING,
+            Order.OrderStatus.PREPARING,
+            Order.OrderStatus.READY);
+
+    private final MongoTemplate mongoTemplate;
+
+    // canteenId -> orderId -> entry
+    private final Map<String, Map<String, Entry>> byCanteen = new ConcurrentHashMap<>();
+
+    private final Counter driftCounter;
+
+    public ActiveOrderIndex(MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.driftCounter = Counter.builder("orders.active.index.drift")
+                .description("Active-order index entries corrected by reconciliation")
+                .register(meterRegistry);
+        Gauge.builder("orders.active.index.size", byCanteen,
+                m -> m.values().stream().mapToInt(Map::size).sum())
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.warn("Could not load active orders: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Records the latest state of an order: adds or replaces it while it is
+     * paid and active, and drops it otherwise (e.g. once COMPLETED).
+     */
+    public void apply(Order order) {
+        boolean active = isActive(order);
+        for (String canteenId : order.getCanteenIds()) {
+            if (active) {
+                byCanteen.computeIfAbsent(canteenId, k -> new ConcurrentHashMap<>())
+                        .put(order.getId(), new Entry(order, System.nanoTime()));
+            } else {
+                Map<String, Entry> orders = byCanteen.get(canteenId);
+                if (orders != null) {
+                    orders.remove(order.getId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Active orders of a canteen, newest first.
+     */
+    public List<Order> getActiveOrders(String canteenId) {
+        Map<String, Entry> orders = byCanteen.get(canteenId);
+        if (orders == null) {
+            return List.of();
+        }
+        return orders.values().stream()
+                .map(entry -> entry.order)
+                .sorted(Comparator.comparing(Order::getCreatedAt,
+                        Comparator.nullsLast(Comparator.reverseOrder())))
+                .collect(Collectors.toList());
+    }
+
+    public Optional<Order> find(String canteenId, String orderId) {
+        Map<String, Entry> orders = byCanteen.get(canteenId);
+        Entry entry = orders != null ? orders.get(orderId) : null;
+        return Optional.ofNullable(entry).map(e -> e.order);
+    }
+
+    /**
+     * Compares the index with the active orders in Mongo and fixes any
+     * difference. Entries written while the query ran are left alone, so a
+     * concurrent update is never rolled back to the older database read.
+     */
+    @Scheduled(fixedDelayString = "${orders.active-index.reconcile-ms:300000}",
+            initialDelayString = "${orders.active-index.reconcile-ms:300000}")
+    public void reconcile() {
+        long startedAt = System.nanoTime();
+        Query query = Query.query(Criteria.where("paymentStatus").is("succeeded")
+                .and("orderStatus").in(ACTIVE_STATUSES));
+        query.fields().exclude("statusHistory").exclude("qrCodeBase64");
+        List<Order> stored = mongoTemplate.find(query, Order.class);
+
+        Map<String, Map<String, Order>> expected = new HashMap<>();
+        for (Order order : stored) {
+            for (String canteenId : order.getCanteenIds()) {
+                expected.computeIfAbsent(canteenId, k -> new HashMap<>()).put(order.getId(), order);
+            }
+        }
+
+        int drift = 0;
+        for (Map.Entry<String, Map<String, Order>> canteen : expected.entrySet()) {
+            Map<String, Entry> indexed = byCanteen.computeIfAbsent(canteen.getKey(), k -> new ConcurrentHashMap<>());
+            for (Order order : canteen.getValue().values()) {
+                Entry current = indexed.get(order.getId());
+                if (current == null || (current.indexedAt < startedAt && isStale(current.order, order))) {
+                    indexed.put(order.getId(), new Entry(order, startedAt));
+                    drift++;
+                }
+            }
+        }
+        for (Map.Entry<String, Map<String, Entry>> canteen : byCanteen.entrySet()) {
+            Map<String, Order> expectedOrders = expected.getOrDefault(canteen.getKey(), Map.of());
+            drift += removeIf(canteen.getValue(),
+                    (orderId, entry) -> entry.indexedAt < startedAt && !expectedOrders.containsKey(orderId));
+        }
+
+        if (drift > 0) {
+            driftCounter.increment(drift);
+            log.info("Active order index reconciled: {} entries corrected, {} active orders", drift, stored.size());
+        }
+    }
+
+    private static int removeIf(Map<String, Entry> orders, java.util.function.BiPredicate<String, Entry> predicate) {
+        int removed = 0;
+        for (Map.Entry<String, Entry> entry : orders.entrySet()) {
+            if (predicate.test(entry.getKey(), entry.getValue()) && orders.remove(entry.getKey(), entry.getValue())) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private static boolean isStale(Order indexed, Order stored) {
+        return indexed.getOrderStatus() != stored.getOrderStatus()
+                || (stored.getUpdatedAt() != null && !stored.getUpdatedAt().equals(indexed.getUpdatedAt()));
+    }
+
+    private static boolean isActive(Order order) {
+        return "succeeded".equals(order.getPaymentStatus()) && ACTIVE_STATUSES.contains(order.getOrderStatus());
+    }
+
+    private static final class Entry {
+        private final Order order;
+        private final long indexedAt;
+
+        private Entry(Order order, long indexedAt) {
+            this.order = order;
+            this.indexedAt = indexedAt;
+        }
+    }
+}
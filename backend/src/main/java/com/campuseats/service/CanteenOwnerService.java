@@ -1,7 +1,11 @@
 package com.campuseats.service;
 
 import com.campuseats.model.CanteenOwner;
+import com.campuseats.model.Identity;
 import com.campuseats.repository.CanteenOwnerRepository;
+import com.campuseats.security.PrincipalCache;
+import com.campuseats.security.PrincipalType;
+import com.campuseats.security.TokenVersionRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -13,6 +17,10 @@ import java.util.List;
 public class CanteenOwnerService {
 
     private final CanteenOwnerRepository canteenOwnerRepository;
+    private final PrincipalCache principalCache;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final TokenRevocationService tokenRevocationService;
+    private final IdentityService identityService;
 
     public CanteenOwner createCanteenOwner(CanteenOwner owner) {
         return canteenOwnerRepository.save(owner);
@@ -55,7 +63,11 @@ public class CanteenOwnerService {
         owner.setApprovedAt(LocalDateTime.now());
         owner.setEnabled(true);
 
-        return canteenOwnerRepository.save(owner);
+        CanteenOwner saved = canteenOwnerRepository.save(owner);
+        identityService.refresh(Identity.of(saved));
+        tokenRevocationService.clearSubject(saved.getEmail());
+        principalCache.invalidate(saved.getEmail());
+        return saved;
     }
 
     public CanteenOwner rejectRegistration(String ownerId, String adminId, String reason) {
@@ -67,8 +79,16 @@ public class CanteenOwnerService {
         owner.setApprovedAt(LocalDateTime.now());
         owner.setRejectionReason(reason);
         owner.setEnabled(false);
-
-        return canteenOwnerRepository.save(owner);
+        // Invalidate every token issued to this owner so far
+        owner.setTokenVersion(owner.getTokenVersion() + 1);
+
+        CanteenOwner saved = canteenOwnerRepository.save(owner);
+        identityService.refresh(Identity.of(saved));
+        tokenVersionRegistry.update(PrincipalType.CANTEEN_OWNER, saved.getId(), saved.getTokenVersion());
+        // Version bumps are only seen by this node; the revocation reaches every node
+        tokenRevocationService.revokeSubject(saved.getEmail());
+        principalCache.invalidate(saved.getEmail());
+        return saved;
     }
 
     public long getPendingCount() {
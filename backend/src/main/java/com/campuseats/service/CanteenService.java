@@ -1,10 +1,9 @@
 package com.campuseats.service;
 
 import com.campuseats.dto.CanteenQueueStatusDTO;
+import com.campuseats.dto.PickupSlotAvailability;
 import com.campuseats.model.Canteen;
-import com.campuseats.model.Order;
 import com.campuseats.repository.CanteenRepository;
-import com.campuseats.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -14,19 +13,23 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CanteenService {
 
     private final CanteenRepository canteenRepository;
-    private final OrderRepository orderRepository;
+    private final QueueStatusService queueStatusService;
+    private final PickupSlotService pickupSlotService;
     private static final String UPLOAD_DIR = "uploads/canteens/";
 
     public Canteen createCanteen(Canteen canteen) {
-        return canteenRepository.save(canteen);
+        Canteen saved = canteenRepository.save(canteen);
+        queueStatusService.onCanteenChanged();
+        pickupSlotService.onCanteenChanged(saved.getId());
+        return saved;
     }
 
     public Canteen updateCanteen(String id, Canteen canteenDetails) {
@@ -58,8 +61,23 @@ public class CanteenService {
         if (canteenDetails.getDietaryOptions() != null) {
             canteen.setDietaryOptions(canteenDetails.getDietaryOptions());
         }
+        if (canteenDetails.getPickupSlotMinutes() != null) {
+            canteen.setPickupSlotMinutes(canteenDetails.getPickupSlotMinutes());
+        }
+        if (canteenDetails.getPickupSlotCapacity() != null) {
+            // Zero or less lifts the limit
+            canteen.setPickupSlotCapacity(canteenDetails.getPickupSlotCapacity() > 0
+                    ? canteenDetails.getPickupSlotCapacity()
+                    : null);
+        }
+        if (canteenDetails.getPickupSlotCapacityOverrides() != null) {
+            canteen.setPickupSlotCapacityOverrides(canteenDetails.getPickupSlotCapacityOverrides());
+        }
 
-        return canteenRepository.save(canteen);
+        Canteen saved = canteenRepository.save(canteen);
+        queueStatusService.onCanteenChanged();
+        pickupSlotService.onCanteenChanged(saved.getId());
+        return saved;
     }
 
     public Canteen getCanteenByOwnerId(String ownerId) {
@@ -106,7 +124,10 @@ public class CanteenService {
         Canteen canteen = canteenRepository.findById(canteenId)
                 .orElseThrow(() -> new RuntimeException("Canteen not found"));
         canteen.setStatus(status);
-        return canteenRepository.save(canteen);
+        Canteen saved = canteenRepository.save(canteen);
+        queueStatusService.onCanteenChanged();
+        pickupSlotService.onCanteenChanged(saved.getId());
+        return saved;
     }
 
     public List<Canteen> getAllCanteens() {
@@ -114,63 +135,10 @@ public class CanteenService {
     }
 
     public List<CanteenQueueStatusDTO> getAllCanteenQueueStatus() {
-        // Get all active canteens
-        List<Canteen> canteens = canteenRepository.findAll().stream()
-                .filter(Canteen::isActive)
-                .collect(Collectors.toList());
-
-        // Statuses to count as "pending" (not yet ready for pickup)
-        List<Order.OrderStatus> pendingStatuses = Arrays.asList(
-                Order.OrderStatus.PENDING,
-                Order.OrderStatus.PREPARING);
-
-        String successfulPaymentStatus = "succeeded";
-
-        return canteens.stream().map(canteen -> {
-            // Count total pending orders for this canteen (only paid orders)
-            Long totalPendingOrders = orderRepository.countByOrderItemsCanteenIdAndOrderStatusInAndPaymentStatus(
-                    canteen.getId(),
-                    pendingStatuses,
-                    successfulPaymentStatus);
-
-            // Count by order type (only paid orders)
-            Long nowOrders = orderRepository.countByOrderItemsCanteenIdAndOrderStatusInAndOrderTypeAndPaymentStatus(
-                    canteen.getId(),
-                    pendingStatuses,
-                    Order.OrderType.NOW,
-                    successfulPaymentStatus);
-
-            Long laterOrders = orderRepository.countByOrderItemsCanteenIdAndOrderStatusInAndOrderTypeAndPaymentStatus(
-                    canteen.getId(),
-                    pendingStatuses,
-                    Order.OrderType.LATER,
-                    successfulPaymentStatus);
-
-            // Build order type breakdown
-            Map<Order.OrderType, Integer> ordersByType = new HashMap<>();
-            ordersByType.put(Order.OrderType.NOW, nowOrders.intValue());
-            ordersByType.put(Order.OrderType.LATER, laterOrders.intValue());
-
-            // Determine queue status based on thresholds
-            String queueStatus;
-            int pendingCount = totalPendingOrders.intValue();
-
-            if (pendingCount >= 5) {
-                queueStatus = "HIGH";
-            } else if (pendingCount >= 3) {
-                queueStatus = "MEDIUM";
-            } else if (pendingCount >= 1) {
-                queueStatus = "LOW";
-            } else {
-                queueStatus = "NONE";
-            }
-
-            return new CanteenQueueStatusDTO(
-                    canteen.getId(),
-                    canteen.getCanteenName(),
-                    queueStatus,
-                    pendingCount,
-                    ordersByType);
-        }).collect(Collectors.toList());
+        return queueStatusService.getQueueStatus();
+    }
+
+    public List<PickupSlotAvailability> getPickupSlots(String canteenId, LocalDate date) {
+        return pickupSlotService.getAvailability(canteenId, date);
     }
 }
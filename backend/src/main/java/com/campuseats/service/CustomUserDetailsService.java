@@ -3,86 +3,145 @@ package com.campuseats.service;
 import com.campuseats.model.User;
 import com.campuseats.model.CanteenOwner;
 import com.campuseats.model.Admin;
+import com.campuseats.model.Identity;
 import com.campuseats.repository.UserRepository;
 import com.campuseats.repository.CanteenOwnerRepository;
 import com.campuseats.repository.AdminRepository;
+import com.campuseats.security.AuthenticatedUser;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Optional;
 import java.util.Set;
-import java.util.HashSet;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
         private final UserRepository userRepository;
         private final CanteenOwnerRepository canteenOwnerRepository;
         private final AdminRepository adminRepository;
+        private final IdentityService identityService;
+        private final MongoTemplate mongoTemplate;
 
         @Override
         @Transactional
         public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+                // One indexed lookup; the identity carries everything the principal needs
+                Optional<Identity> identity = identityService.resolve(username);
+                if (identity.isPresent() && identity.get().getPassword() != null) {
+                        return toPrincipal(identity.get());
+                }
+
+                // Identities from before the credential copy are loaded by id and filled in
+                if (identity.isPresent()) {
+                        Optional<Identity> current = loadByIdentity(identity.get());
+                        if (current.isPresent()) {
+                                identityService.refresh(current.get());
+                                return toPrincipal(current.get());
+                        }
+                }
+
+                // Accounts not yet in the identity index fall back to probing each collection
+                Identity probed = loadByProbing(username);
+                if (identity.isEmpty()) {
+                        try {
+                                identityService.register(probed);
+                        } catch (LoginKeyTakenException e) {
+                                // Registered concurrently by another login or signup
+                        }
+                }
+                return toPrincipal(probed);
+        }
+
+        /**
+         * Stores a rehashed password after a successful login, so the BCrypt
+         * cost can be tuned without forcing a password reset.
+         */
+        @Override
+        public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+                AuthenticatedUser user = (AuthenticatedUser) userDetails;
+                Class<?> accountClass = switch (user.getPrincipalType()) {
+                        case USER -> User.class;
+                        case CANTEEN_OWNER -> CanteenOwner.class;
+                        case ADMIN -> Admin.class;
+                };
+                mongoTemplate.updateFirst(
+                                Query.query(Criteria.where("id").is(user.getId())),
+                                Update.update("password", newPassword),
+                                accountClass);
+                identityService.updatePassword(user.getUsername(), user.getId(), newPassword);
+
+                return new AuthenticatedUser(
+                                user.getId(),
+                                user.getUsername(),
+                                newPassword,
+                                user.getPrincipalType(),
+                                user.getTokenVersion(),
+                                user.isEnabled(),
+                                user.getAuthorities());
+        }
+
+        private Optional<Identity> loadByIdentity(Identity identity) {
+                switch (identity.getPrincipalType()) {
+                        case USER:
+                                return userRepository.findById(identity.getPrincipalId()).map(Identity::of);
+                        case CANTEEN_OWNER:
+                                return canteenOwnerRepository.findById(identity.getPrincipalId())
+                                                .map(Identity::of);
+                        case ADMIN:
+                                return adminRepository.findById(identity.getPrincipalId()).map(Identity::of);
+                        default:
+                                return Optional.empty();
+                }
+        }
+
+        private Identity loadByProbing(String username) {
                 // First try to find as regular user by username
                 var optionalUser = userRepository.findByUsername(username);
                 if (optionalUser.isPresent()) {
-                        User user = optionalUser.get();
-                        Set<GrantedAuthority> authorities = user.getRoles().stream()
-                                        .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
-                                        .collect(Collectors.toSet());
-
-                        return new org.springframework.security.core.userdetails.User(
-                                        user.getUsername(),
-                                        user.getPassword(),
-                                        user.isEnabled(),
-                                        true,
-                                        true,
-                                        true,
-                                        authorities);
+                        return Identity.of(optionalUser.get());
                 }
 
                 // If not found, try to find as canteen owner by email
                 var optionalOwner = canteenOwnerRepository.findByEmail(username);
                 if (optionalOwner.isPresent()) {
-                        CanteenOwner owner = optionalOwner.get();
-                        Set<GrantedAuthority> authorities = new HashSet<>();
-                        authorities.add(new SimpleGrantedAuthority("ROLE_CANTEEN_OWNER"));
-
-                        return new org.springframework.security.core.userdetails.User(
-                                        owner.getEmail(),
-                                        owner.getPassword(),
-                                        owner.isEnabled(),
-                                        true,
-                                        true,
-                                        true,
-                                        authorities);
+                        return Identity.of(optionalOwner.get());
                 }
 
                 // If not found, try to find as admin by email
                 var optionalAdmin = adminRepository.findByEmail(username);
                 if (optionalAdmin.isPresent()) {
-                        Admin admin = optionalAdmin.get();
-                        Set<GrantedAuthority> authorities = admin.getRoles().stream()
-                                        .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
-                                        .collect(Collectors.toSet());
-
-                        return new org.springframework.security.core.userdetails.User(
-                                        admin.getEmail(),
-                                        admin.getPassword(),
-                                        admin.isEnabled(),
-                                        true,
-                                        true,
-                                        true,
-                                        authorities);
+                        return Identity.of(optionalAdmin.get());
                 }
 
                 throw new UsernameNotFoundException("User not found with username: " + username);
         }
+
+        private AuthenticatedUser toPrincipal(Identity identity) {
+                Set<GrantedAuthority> authorities = identity.getAuthorities().stream()
+                                .map(SimpleGrantedAuthority::new)
+                                .collect(Collectors.toSet());
+
+                return new AuthenticatedUser(
+                                identity.getPrincipalId(),
+                                identity.getLoginKey(),
+                                identity.getPassword(),
+                                identity.getPrincipalType(),
+                                identity.getTokenVersion(),
+                                identity.isEnabled(),
+                                authorities);
+        }
 }
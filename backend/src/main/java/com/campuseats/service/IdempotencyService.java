@@ -0,0 +1,251 @@
+package com.campuseats.service;
+
+import com.campuseats.model.IdempotencyRecord;
+import com.campuseats.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per Idempotency-Key. The first execution's
+ * response is stored in idempotency_records (expired by a TTL index) and
+ * replayed for retries. Duplicates arriving while the first execution is
+ * still running on this node wait for its result; a duplicate that reaches
+ * another node in the meantime gets 409 and retries.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, CompletableFuture<IdempotencyRecord>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${idempotency.wait-timeout-ms:15000}")
+    private long waitTimeoutMs;
+
+    // An IN_PROGRESS record older than this is assumed to belong to a crashed node
+    @Value("${idempotency.lock-timeout-ms:60000}")
+    private long lockTimeoutMs;
+
+    public IdempotencyService(IdempotencyRecordRepository recordRepository,
+            MongoTemplate mongoTemplate,
+            ObjectMapper objectMapper) {
+        this.recordRepository = recordRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            IndexOperations indexOps = mongoTemplate.indexOps(IdempotencyRecord.class);
+            new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                    .resolveIndexFor(IdempotencyRecord.class)
+                    .forEach(indexOps::ensureIndex);
+        } catch (Exception e) {
+            log.warn("Could not ensure idempotency indexes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Runs the action unless a request with the same key was already handled
+     * for this caller and operation. Without a key the action simply runs.
+     */
+    public ResponseEntity<?> execute(String operation, String callerId, String key, Object request,
+            Supplier<ResponseEntity<?>> action) {
+        if (!StringUtils.hasText(key)) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Idempotency-Key is too long"));
+        }
+
+        String id = operation + ":" + callerId + ":" + key;
+        String requestHash = hash(request);
+
+        CompletableFuture<IdempotencyRecord> execution = new CompletableFuture<>();
+        CompletableFuture<IdempotencyRecord> running = inFlight.putIfAbsent(id, execution);
+        if (running != null) {
+            return awaitAndReplay(running, requestHash);
+        }
+
+        try {
+            return executeOnce(id, requestHash, action, execution);
+        } finally {
+            inFlight.remove(id, execution);
+            // Waiters get a 409 and retry if this execution did not produce a stored response
+            execution.complete(null);
+        }
+    }
+
+    private ResponseEntity<?> executeOnce(String id, String requestHash, Supplier<ResponseEntity<?>> action,
+            CompletableFuture<IdempotencyRecord> execution) {
+        Optional<IdempotencyRecord> stored = recordRepository.findById(id);
+        if (stored.isPresent()) {
+            IdempotencyRecord record = stored.get();
+            if (!requestHash.equals(record.getRequestHash())) {
+                return keyReused();
+            }
+            if (record.getStatus() == IdempotencyRecord.Status.COMPLETED) {
+                execution.complete(record);
+                return replay(record);
+            }
+            if (!takeOverAbandoned(id)) {
+                return inProgress();
+            }
+        } else if (!claim(id, requestHash)) {
+            return inProgress();
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            // Nothing to replay; let the client retry the same key
+            recordRepository.deleteById(id);
+            throw e;
+        }
+
+        if (response.getStatusCode().is5xxServerError()) {
+            recordRepository.deleteById(id);
+            return response;
+        }
+
+        try {
+            IdempotencyRecord record = new IdempotencyRecord(
+                    id,
+                    requestHash,
+                    IdempotencyRecord.Status.COMPLETED,
+                    response.getStatusCode().value(),
+                    response.getBody() != null ? objectMapper.writeValueAsString(response.getBody()) : null,
+                    null,
+                    Instant.now().plus(Duration.ofHours(ttlHours)));
+            recordRepository.save(record);
+            execution.complete(record);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not store idempotent response for {}: {}", id, e.getMessage());
+            recordRepository.deleteById(id);
+        }
+        return response;
+    }
+
+    private boolean claim(String id, String requestHash) {
+        try {
+            recordRepository.insert(new IdempotencyRecord(
+                    id,
+                    requestHash,
+                    IdempotencyRecord.Status.IN_PROGRESS,
+                    null,
+                    null,
+                    Instant.now(),
+                    Instant.now().plus(Duration.ofHours(ttlHours))));
+            return true;
+        } catch (DuplicateKeyException e) {
+            // Another node claimed the key first
+            return false;
+        }
+    }
+
+    private boolean takeOverAbandoned(String id) {
+        Query query = Query.query(Criteria.where("_id").is(id)
+                .and("status").is(IdempotencyRecord.Status.IN_PROGRESS)
+                .and("lockedAt").lt(Instant.now().minusMillis(lockTimeoutMs)));
+        IdempotencyRecord claimed = mongoTemplate.findAndModify(
+                query,
+                new Update().set("lockedAt", Instant.now()),
+                FindAndModifyOptions.options().returnNew(true),
+                IdempotencyRecord.class);
+        return claimed != null;
+    }
+
+    private ResponseEntity<?> awaitAndReplay(CompletableFuture<IdempotencyRecord> running, String requestHash) {
+        IdempotencyRecord record;
+        try {
+            record = running.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return inProgress();
+        } catch (Exception e) {
+            return inProgress();
+        }
+
+        if (record == null) {
+            return inProgress();
+        }
+        if (!requestHash.equals(record.getRequestHash())) {
+            return keyReused();
+        }
+        return replay(record);
+    }
+
+    private ResponseEntity<?> replay(IdempotencyRecord record) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(record.getResponseStatus())
+                .header(REPLAYED_HEADER, "true");
+        if (record.getResponseBody() == null) {
+            return builder.build();
+        }
+        return builder.contentType(MediaType.APPLICATION_JSON).body(record.getResponseBody());
+    }
+
+    private ResponseEntity<?> inProgress() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", "A request with this Idempotency-Key is still being processed"));
+    }
+
+    private ResponseEntity<?> keyReused() {
+        return ResponseEntity.unprocessableEntity()
+                .body(Map.of("error", "Idempotency-Key was already used for a different request"));
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(request);
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Request cannot be serialized", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.campuseats.service;
+
+import com.campuseats.model.Admin;
+import com.campuseats.model.CanteenOwner;
+import com.campuseats.model.Identity;
+import com.campuseats.model.User;
+import com.campuseats.repository.AdminRepository;
+import com.campuseats.repository.CanteenOwnerRepository;
+import com.campuseats.repository.IdentityRepository;
+import com.campuseats.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Function;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdentityService {
+
+    private final IdentityRepository identityRepository;
+    private final UserRepository userRepository;
+    private final CanteenOwnerRepository canteenOwnerRepository;
+    private final AdminRepository adminRepository;
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${identity.backfill.enabled:true}")
+    private boolean backfillEnabled;
+
+    @Value("${identity.backfill.batch-size:500}")
+    private int backfillBatchSize;
+
+    /**
+     * Resolves a login key with exactly one indexed lookup on identities.
+     */
+    public Optional<Identity> resolve(String loginKey) {
+        return identityRepository.findByLoginKey(loginKey);
+    }
+
+    /**
+     * Claims the identity's login key for its account. Login keys are unique
+     * across users, canteen owners and admins, so a key held by any other
+     * account is rejected rather than silently left pointing elsewhere.
+     */
+    public void register(Identity identity) {
+        try {
+            identityRepository.insert(identity);
+        } catch (DuplicateKeyException e) {
+            throw new LoginKeyTakenException(identity.getLoginKey());
+        }
+    }
+
+    /**
+     * Rewrites the credential copy after the account's password, roles,
+     * token version or enabled flag change.
+     */
+    public void refresh(Identity identity) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("loginKey").is(identity.getLoginKey())
+                        .and("principalId").is(identity.getPrincipalId())),
+                new Update()
+                        .set("password", identity.getPassword())
+                        .set("authorities", identity.getAuthorities())
+                        .set("tokenVersion", identity.getTokenVersion())
+                        .set("enabled", identity.isEnabled()),
+                Identity.class);
+    }
+
+    public void updatePassword(String loginKey, String principalId, String password) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("loginKey").is(loginKey).and("principalId").is(principalId)),
+                Update.update("password", password),
+                Identity.class);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            ensureIndexes();
+            if (backfillEnabled) {
+                backfill();
+            }
+        } catch (Exception e) {
+            log.warn("Identity index backfill failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Upserts an identity for every existing account, one bulk write per
+     * batch. Safe to re-run: existing mappings are left untouched.
+     */
+    public void backfill() {
+        long users = backfill(userRepository, User::getUsername, Identity::of);
+        long owners = backfill(canteenOwnerRepository, CanteenOwner::getEmail, Identity::of);
+        long admins = backfill(adminRepository, Admin::getEmail, Identity::of);
+        log.info("Identity backfill complete: {} users, {} canteen owners, {} admins", users, owners, admins);
+    }
+
+    private <T> long backfill(PagingAndSortingRepository<T, String> repository,
+            Function<T, String> loginKey,
+            Function<T, Identity> snapshot) {
+        long processed = 0;
+        int page = 0;
+        Page<T> batch;
+        do {
+            batch = repository.findAll(PageRequest.of(page++, backfillBatchSize, Sort.by("id")));
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Identity.class);
+            int queued = 0;
+            for (T account : batch) {
+                if (loginKey.apply(account) == null) {
+                    continue;
+                }
+                queued++;
+                Identity identity = snapshot.apply(account);
+                bulk.upsert(
+                        Query.query(Criteria.where("loginKey").is(identity.getLoginKey())),
+                        new Update()
+                                .setOnInsert("principalType", identity.getPrincipalType())
+                                .setOnInsert("principalId", identity.getPrincipalId())
+                                .setOnInsert("password", identity.getPassword())
+                                .setOnInsert("authorities", identity.getAuthorities())
+                                .setOnInsert("tokenVersion", identity.getTokenVersion())
+                                .setOnInsert("enabled", identity.isEnabled())
+                                .setOnInsert("createdAt", LocalDateTime.now()));
+            }
+            try {
+                if (queued > 0) {
+                    bulk.execute();
+                }
+            } catch (DuplicateKeyException | BulkOperationException e) {
+                // Another node backfilled the same keys concurrently
+                log.debug("Identity backfill batch raced with a concurrent insert: {}", e.getMessage());
+            }
+            processed += batch.getNumberOfElements();
+        } while (batch.hasNext());
+        return processed;
+    }
+
+    private void ensureIndexes() {
+        IndexOperations indexOps = mongoTemplate.indexOps(Identity.class);
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(Identity.class)
+                .forEach(indexOps::ensureIndex);
+    }
+}
@@ -0,0 +1,12 @@
+package com.campuseats.service;
+
+/**
+ * Thrown when a new account's login key (username or email) already
+ * belongs to another account, of any type.
+ */
+public class LoginKeyTakenException extends RuntimeException {
+
+    public LoginKeyTakenException(String loginKey) {
+        super("Login " + loginKey + " is already in use");
+    }
+}
@@ -6,6 +6,12 @@ import com.campuseats.model.Order;
 import com.campuseats.repository.LoyaltyAccountRepository;
 import com.campuseats.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.time.DayOfWeek;
@@ -20,30 +26,30 @@ public class LoyaltyService {
 
     private final LoyaltyAccountRepository loyaltyAccountRepository;
     private final OrderRepository orderRepository;
+    private final MongoTemplate mongoTemplate;
 
     // Points configuration
     private static final int POINTS_PER_RUPEES = 10; // 1 point per Rs. 10 spent
     private static final int SILVER_THRESHOLD = 500;
     private static final int GOLD_THRESHOLD = 2000;
     private static final int PLATINUM_THRESHOLD = 5000;
+    private static final int MAX_TRANSACTIONS = 50;
+    // Payments remembered per account to skip repeated credits; retries happen long before this many new ones
+    private static final int RECENT_EARNINGS = 200;
 
     // ── Earn Points ──
 
-    public void earnPoints(String userId, String orderId, Double orderAmount) {
-        LoyaltyAccount account = getOrCreateAccount(userId);
-
+    /**
+     * Credits points for a payment. {@code earningId} identifies the payment,
+     * and the account remembers its most recent earnings, so crediting the
+     * same payment again (e.g. a retried outbox event) changes nothing.
+     */
+    public void earnPoints(String userId, String earningId, String orderId, Double orderAmount) {
         int pointsEarned = (int) (orderAmount / POINTS_PER_RUPEES);
         if (pointsEarned <= 0)
             return;
 
-        account.setTotalPoints(account.getTotalPoints() + pointsEarned);
-        account.setLifetimePoints(account.getLifetimePoints() + pointsEarned);
-
-        // Update tier
-        account.setTier(calculateTier(account.getLifetimePoints()));
-
-        // Update weekly spending
-        updateWeeklySpending(account, userId, orderId);
+        getOrCreateAccount(userId);
 
         // Add transaction
         LoyaltyAccount.LoyaltyTransaction transaction = new LoyaltyAccount.LoyaltyTransaction();
@@ -53,26 +59,34 @@ public class LoyaltyService {
         transaction.setDescription("Earned " + pointsEarned + " points from order");
         transaction.setTimestamp(LocalDateTime.now());
 
-        List<LoyaltyAccount.LoyaltyTransaction> transactions = account.getTransactions();
-        transactions.add(0, transaction);
+        // Points, the earning record and the history entry land in one conditional write
+        Query query = Query.query(Criteria.where("userId").is(userId).and("earnedFor").ne(earningId));
+        Update update = new Update()
+                .inc("totalPoints", pointsEarned)
+                .inc("lifetimePoints", pointsEarned);
+        update.push("earnedFor").slice(-RECENT_EARNINGS).each(earningId);
         // Keep only last 50 transactions
-        if (transactions.size() > 50) {
-            account.setTransactions(new ArrayList<>(transactions.subList(0, 50)));
+        update.push("transactions").atPosition(Update.Position.FIRST).slice(MAX_TRANSACTIONS).each(transaction);
+        LoyaltyAccount account = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), LoyaltyAccount.class);
+        if (account == null) {
+            // Already credited for this payment
+            return;
         }
 
-        loyaltyAccountRepository.save(account);
+        // Update tier
+        mongoTemplate.updateFirst(Query.query(Criteria.where("userId").is(userId)),
+                new Update().set("tier", calculateTier(account.getLifetimePoints())),
+                LoyaltyAccount.class);
+
+        // Update weekly spending
+        updateWeeklySpending(account, userId, orderId);
     }
 
     // ── Redeem Points ──
 
     public Double redeemPoints(String userId, Integer points) {
-        LoyaltyAccount account = getOrCreateAccount(userId);
-
-        if (points > account.getTotalPoints()) {
-            throw new RuntimeException("Insufficient loyalty points. Available: " + account.getTotalPoints());
-        }
-
-        account.setTotalPoints(account.getTotalPoints() - points);
+        LoyaltyAccount existing = getOrCreateAccount(userId);
 
         // Add transaction
         LoyaltyAccount.LoyaltyTransaction transaction = new LoyaltyAccount.LoyaltyTransaction();
@@ -81,14 +95,14 @@ public class LoyaltyService {
         transaction.setDescription("Redeemed " + points + " points for Rs. " + points + " discount");
         transaction.setTimestamp(LocalDateTime.now());
 
-        List<LoyaltyAccount.LoyaltyTransaction> transactions = account.getTransactions();
-        transactions.add(0, transaction);
-        if (transactions.size() > 50) {
-            account.setTransactions(new ArrayList<>(transactions.subList(0, 50)));
+        // The balance check and the deduction are one write, so concurrent redemptions cannot overdraw
+        Query query = Query.query(Criteria.where("userId").is(userId).and("totalPoints").gte(points));
+        Update update = new Update().inc("totalPoints", -points);
+        update.push("transactions").atPosition(Update.Position.FIRST).slice(MAX_TRANSACTIONS).each(transaction);
+        if (mongoTemplate.updateFirst(query, update, LoyaltyAccount.class).getModifiedCount() == 0) {
+            throw new RuntimeException("Insufficient loyalty points. Available: " + existing.getTotalPoints());
         }
 
-        loyaltyAccountRepository.save(account);
-
         // 1 point = Rs. 1 discount
         return (double) points;
     }
@@ -153,7 +167,12 @@ public class LoyaltyService {
                     newAccount.setWeeklySpending(new HashMap<>());
                     newAccount.setWeekStart(getWeekStart());
                     newAccount.setTransactions(new ArrayList<>());
-                    return loyaltyAccountRepository.save(newAccount);
+                    try {
+                        return loyaltyAccountRepository.insert(newAccount);
+                    } catch (DuplicateKeyException e) {
+                        // Created concurrently by another request
+                        return loyaltyAccountRepository.findByUserId(userId).orElseThrow(() -> e);
+                    }
                 });
     }
 
@@ -178,7 +197,12 @@ public class LoyaltyService {
         }
 
         account.setWeeklySpending(spending);
-        loyaltyAccountRepository.save(account);
+        // Only the spending fields, so points credited meanwhile are not overwritten
+        mongoTemplate.updateFirst(Query.query(Criteria.where("userId").is(userId)),
+                new Update()
+                        .set("weeklySpending", spending)
+                        .set("weekStart", account.getWeekStart()),
+                LoyaltyAccount.class);
     }
 
     private void updateWeeklySpending(LoyaltyAccount account, String userId, String orderId) {
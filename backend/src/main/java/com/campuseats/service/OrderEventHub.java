@@ -0,0 +1,328 @@
+package com.campuseats.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Fans order events out to Server-Sent Event subscribers of a topic (one per
+ * user and one per canteen). Publishing never blocks on a client: each
+ * subscriber has a bounded buffer drained by a small sender pool, and a
+ * subscriber that falls a full buffer behind is disconnected so it can
+ * reconnect and catch up. Each topic keeps its most recent events so a
+ * reconnect with Last-Event-ID replays what was missed; if the gap is older
+ * than that, the client is told to resync with a normal fetch. Histories of
+ * topics nobody has published to for a while are dropped, and the number of
+ * topics with a history is capped.
+ */
+@Component
+@Slf4j
+public class OrderEventHub {
+
+    public static final String RESYNC_EVENT = "resync";
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, TopicHistory> history = new ConcurrentHashMap<>();
+
+    // Seeded from the clock so ids keep increasing across restarts
+    private final long firstEventId = System.currentTimeMillis() * 1000;
+    private final AtomicLong eventIds = new AtomicLong(firstEventId);
+    // Newest event id of any dropped topic history; replays from before it cannot be complete
+    private final AtomicLong droppedHistoryUpTo = new AtomicLong();
+    private final ExecutorService sender;
+
+    private final int bufferSize;
+    private final int historySize;
+    private final long timeoutMs;
+    private final long historyIdleNanos;
+    private final int maxTopics;
+
+    private final Counter droppedCounter;
+
+    public OrderEventHub(@Value("${orders.stream.buffer-size:64}") int bufferSize,
+            @Value("${orders.stream.history-size:256}") int historySize,
+            @Value("${orders.stream.timeout-ms:1800000}") long timeoutMs,
+            @Value("${orders.stream.sender-threads:4}") int senderThreads,
+            @Value("${orders.stream.history-idle-ms:3600000}") long historyIdleMs,
+            @Value("${orders.stream.max-topics:10000}") int maxTopics,
+            MeterRegistry meterRegistry) {
+        this.bufferSize = bufferSize;
+        this.historySize = historySize;
+        this.timeoutMs = timeoutMs;
+        this.historyIdleNanos = TimeUnit.MILLISECONDS.toNanos(historyIdleMs);
+        this.maxTopics = maxTopics;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "order-events-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.droppedCounter = Counter.builder("orders.stream.dropped")
+                .description("Subscribers disconnected because their buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("orders.stream.subscribers", subscribers,
+                s -> s.values().stream().mapToInt(Set::size).sum())
+                .register(meterRegistry);
+        Gauge.builder("orders.stream.topics", history, Map::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream on the topic, first replaying events after lastEventId.
+     */
+    public SseEmitter subscribe(String topic, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(topic, emitter, bufferSize);
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        // Registered and replayed under the topic's lock, which publish holds while fanning
+        // out, so each event reaches the subscriber exactly once: in the replay or live after it
+        withHistory(topic, topicHistory -> {
+            subscribers.compute(topic, (k, topicSubscribers) -> {
+                Set<Subscriber> set = topicSubscribers != null ? topicSubscribers : ConcurrentHashMap.newKeySet();
+                set.add(subscriber);
+                return set;
+            });
+            if (lastEventId != null && !lastEventId.isEmpty()) {
+                replay(subscriber, lastEventId, topicHistory);
+            }
+        });
+        return emitter;
+    }
+
+    public void publish(String topic, String eventName, Object data) {
+        withHistory(topic, topicHistory -> {
+            // Numbered under the lock so a topic's events are stored and sent in id order
+            StoredEvent event = new StoredEvent(eventIds.incrementAndGet(), eventName, data);
+            topicHistory.events.add(event);
+            topicHistory.lastPublishedNanos = System.nanoTime();
+            while (topicHistory.events.size() > historySize) {
+                topicHistory.evictedUpTo = topicHistory.events.poll().id;
+            }
+
+            Set<Subscriber> topicSubscribers = subscribers.get(topic);
+            if (topicSubscribers != null) {
+                for (Subscriber subscriber : topicSubscribers) {
+                    enqueue(subscriber, event);
+                }
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${orders.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Set<Subscriber> topicSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : topicSubscribers) {
+                enqueue(subscriber, StoredEvent.HEARTBEAT);
+            }
+        }
+    }
+
+    /**
+     * Drops the histories of idle topics, then the least recently published
+     * ones while there are more topics than allowed. A client reconnecting
+     * to a dropped topic is told to resync.
+     */
+    @Scheduled(fixedDelayString = "${orders.stream.history-sweep-ms:60000}")
+    public void sweepHistory() {
+        long now = System.nanoTime();
+        List<IdleTopic> kept = new ArrayList<>();
+        for (Map.Entry<String, TopicHistory> entry : history.entrySet()) {
+            long lastPublished = entry.getValue().lastPublishedNanos;
+            if (now - lastPublished > historyIdleNanos) {
+                drop(entry.getKey(), entry.getValue());
+            } else {
+                kept.add(new IdleTopic(entry.getKey(), entry.getValue(), lastPublished));
+            }
+        }
+        if (kept.size() > maxTopics) {
+            // Sorted on the times read above, which publishes cannot change under the sort
+            kept.sort(Comparator.comparingLong(topic -> topic.lastPublishedNanos));
+            for (IdleTopic topic : kept.subList(0, kept.size() - maxTopics)) {
+                drop(topic.topic, topic.history);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(set -> set.forEach(s -> s.emitter.complete()));
+        sender.shutdown();
+    }
+
+    // Runs the action holding the topic's history lock
+    private void withHistory(String topic, Consumer<TopicHistory> action) {
+        while (true) {
+            TopicHistory topicHistory = history.computeIfAbsent(topic,
+                    k -> new TopicHistory(droppedHistoryUpTo.get()));
+            synchronized (topicHistory) {
+                // A history dropped by the sweep meanwhile is replaced by a fresh one
+                if (!topicHistory.dropped) {
+                    action.accept(topicHistory);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void replay(Subscriber subscriber, String lastEventId, TopicHistory topicHistory) {
+        long lastId;
+        try {
+            lastId = Long.parseLong(lastEventId);
+        } catch (NumberFormatException e) {
+            enqueue(subscriber, new StoredEvent(eventIds.get(), RESYNC_EVENT, "{}"));
+            return;
+        }
+
+        // Replay is only complete if nothing after lastId was evicted or published before this instance started
+        boolean complete = lastId >= firstEventId && lastId <= eventIds.get();
+        complete &= lastId >= topicHistory.evictedUpTo;
+
+        if (!complete) {
+            // The client refetches instead
+            enqueue(subscriber, new StoredEvent(eventIds.get(), RESYNC_EVENT, "{}"));
+            return;
+        }
+        for (StoredEvent event : topicHistory.events) {
+            if (event.id > lastId) {
+                enqueue(subscriber, event);
+            }
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, StoredEvent event) {
+        if (!subscriber.buffer.offer(event)) {
+            droppedCounter.increment();
+            log.debug("Dropping slow subscriber on {}", subscriber.topic);
+            remove(subscriber);
+            subscriber.emitter.complete();
+            return;
+        }
+        if (subscriber.draining.compareAndSet(false, true)) {
+            sender.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            StoredEvent event;
+            while ((event = subscriber.buffer.poll()) != null) {
+                if (event == StoredEvent.HEARTBEAT) {
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(String.valueOf(event.id))
+                            .name(event.name)
+                            .data(event.data));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        } finally {
+            subscriber.draining.set(false);
+            // Pick up anything enqueued after the last poll
+            if (!subscriber.buffer.isEmpty() && subscriber.draining.compareAndSet(false, true)) {
+                sender.execute(() -> drain(subscriber));
+            }
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        // Atomic with subscribe, so a subscriber is never added to a set that was just dropped
+        subscribers.computeIfPresent(subscriber.topic, (k, topicSubscribers) -> {
+            topicSubscribers.remove(subscriber);
+            return topicSubscribers.isEmpty() ? null : topicSubscribers;
+        });
+    }
+
+    private void drop(String topic, TopicHistory topicHistory) {
+        synchronized (topicHistory) {
+            topicHistory.dropped = true;
+            history.remove(topic, topicHistory);
+            StoredEvent newest = topicHistory.events.peekLast();
+            long upTo = newest != null ? newest.id : topicHistory.evictedUpTo;
+            droppedHistoryUpTo.accumulateAndGet(upTo, Math::max);
+        }
+    }
+
+    private static final class Subscriber {
+        private final String topic;
+        private final SseEmitter emitter;
+        private final BlockingQueue<StoredEvent> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(String topic, SseEmitter emitter, int bufferSize) {
+            this.topic = topic;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+
+    private static final class TopicHistory {
+        private final ArrayDeque<StoredEvent> events = new ArrayDeque<>();
+        private long evictedUpTo;
+        private volatile long lastPublishedNanos = System.nanoTime();
+        private boolean dropped;
+
+        // Earlier events of the topic may have been in a history that was dropped
+        private TopicHistory(long evictedUpTo) {
+            this.evictedUpTo = evictedUpTo;
+        }
+    }
+
+    private static final class IdleTopic {
+        private final String topic;
+        private final TopicHistory history;
+        private final long lastPublishedNanos;
+
+        private IdleTopic(String topic, TopicHistory history, long lastPublishedNanos) {
+            this.topic = topic;
+            this.history = history;
+            this.lastPublishedNanos = lastPublishedNanos;
+        }
+    }
+
+    private static final class StoredEvent {
+        private static final StoredEvent HEARTBEAT = new StoredEvent(0, null, null);
+
+        private final long id;
+        private final String name;
+        private final Object data;
+
+        private StoredEvent(long id, String name, Object data) {
+            this.id = id;
+            this.name = name;
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.campuseats.service;
+
+import com.campuseats.model.Order;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the orders collection in the shape the current code expects:
+ * ensures its indexes and backfills fields added after orders were first
+ * written. Every step works in batches and only touches documents that
+ * still need it, so it is safe to run on every startup and on several
+ * nodes at once.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderMigrationService {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${orders.migration.enabled:true}")
+    private boolean migrationEnabled;
+
+    @Value("${orders.migration.batch-size:500}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            ensureIndexes();
+            if (migrationEnabled) {
+                backfillCanteenIds();
+                removeStoredQrCodes();
+                backfillPickupAt();
+            }
+        } catch (Exception e) {
+            log.warn("Order migration failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Copies the distinct orderItems.canteenId values into the top-level
+     * canteenIds array for orders written before it existed.
+     */
+    public void backfillCanteenIds() {
+        long migrated = 0;
+        List<Order> batch;
+        do {
+            Query query = Query.query(Criteria.where("canteenIds").exists(false)).limit(batchSize);
+            query.fields().include("orderItems.canteenId");
+            batch = mongoTemplate.find(query, Order.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class);
+            for (Order order : batch) {
+                List<String> canteenIds = order.getOrderItems() == null ? List.of()
+                        : order.getOrderItems().stream()
+                                .map(Order.OrderItem::getCanteenId)
+                                .filter(Objects::nonNull)
+                                .distinct()
+                                .collect(Collectors.toList());
+                bulk.updateOne(
+                        Query.query(Criteria.where("_id").is(order.getId()).and("canteenIds").exists(false)),
+                        new Update().set("canteenIds", canteenIds));
+            }
+            bulk.execute();
+            migrated += batch.size();
+        } while (batch.size() == batchSize);
+
+        if (migrated > 0) {
+            log.info("Backfilled canteenIds on {} orders", migrated);
+        }
+    }
+
+    /**
+     * Drops the base64 QR images older orders stored inline; codes are now
+     * rendered on request. Each batch is one updateMulti over a page of ids.
+     */
+    public void removeStoredQrCodes() {
+        long stripped = 0;
+        List<Order> batch;
+        do {
+            Query query = Query.query(Criteria.where("qrCodeBase64").exists(true)).limit(batchSize);
+            query.fields().include("_id");
+            batch = mongoTemplate.find(query, Order.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            List<String> ids = batch.stream().map(Order::getId).collect(Collectors.toList());
+            stripped += mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("_id").in(ids)),
+                    new Update().unset("qrCodeBase64"),
+                    Order.class).getModifiedCount();
+        } while (batch.size() == batchSize);
+
+        if (stripped > 0) {
+            log.info("Removed stored QR codes from {} orders", stripped);
+        }
+    }
+
+    /**
+     * Parses pickupDate and pickupTime into pickupAt for orders written
+     * before it existed. Orders whose strings do not parse get null, so they
+     * are not selected again.
+     */
+    public void backfillPickupAt() {
+        long migrated = 0;
+        List<Order> batch;
+        do {
+            Query query = Query.query(Criteria.where("pickupAt").exists(false)).limit(batchSize);
+            query.fields().include("pickupDate").include("pickupTime");
+            batch = mongoTemplate.find(query, Order.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class);
+            for (Order order : batch) {
+                bulk.updateOne(
+                        Query.query(Criteria.where("_id").is(order.getId()).and("pickupAt").exists(false)),
+                        new Update().set("pickupAt", OrderService.parsePickupAt(order.getPickupDate(), order.getPickupTime())));
+            }
+            bulk.execute();
+            migrated += batch.size();
+        } while (batch.size() == batchSize);
+
+        if (migrated > 0) {
+            log.info("Backfilled pickupAt on {} orders", migrated);
+        }
+    }
+
+    private void ensureIndexes() {
+        IndexOperations indexOps = mongoTemplate.indexOps(Order.class);
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(Order.class)
+                .forEach(indexOps::ensureIndex);
+    }
+}
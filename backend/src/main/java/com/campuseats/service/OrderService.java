@@ -1,19 +1,41 @@
 package com.campuseats.service;
 
+import com.campuseats.dto.CheckoutSessionResponse;
 import com.campuseats.dto.CreateOrderRequest;
+import com.campuseats.dto.OrderHistoryQuery;
+import com.campuseats.dto.OrderPage;
+import com.campuseats.dto.OrderStats;
 import com.campuseats.dto.OrderResponse;
+import com.campuseats.dto.OrderSummary;
+import com.campuseats.dto.QrCodeContent;
 import com.campuseats.model.Cart;
 import com.campuseats.model.CartItem;
 import com.campuseats.model.Order;
 import com.campuseats.repository.CartRepository;
 import com.campuseats.repository.OrderRepository;
+import com.campuseats.security.InvalidQrTokenException;
+import com.campuseats.security.QrTokenSigner;
 import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,11 +44,37 @@ public class OrderService {
 
         private final OrderRepository orderRepository;
         private final CartRepository cartRepository;
-        private final QRCodeService qrCodeService;
         private final PushNotificationService pushNotificationService;
         private final LoyaltyService loyaltyService;
-
-        public List<OrderResponse> createOrder(String userId, CreateOrderRequest request) {
+        private final MongoTemplate mongoTemplate;
+        private final QrTokenSigner qrTokenSigner;
+        private final OrderEventHub orderEventHub;
+        private final ActiveOrderIndex activeOrderIndex;
+        private final QueueStatusService queueStatusService;
+        private final PrepTimeEstimator prepTimeEstimator;
+        private final OutboxService outboxService;
+        private final ScheduledOrderReleaser scheduledOrderReleaser;
+        private final PickupSlotService pickupSlotService;
+
+        @Value("${orders.page.default-size:50}")
+        private int defaultPageSize;
+
+        @Value("${orders.page.max-size:200}")
+        private int maxPageSize;
+
+        @Value("${qr.token.ttl-hours:168}")
+        private long qrTokenTtlHours;
+
+        // Accept codes that encode the bare order id, as issued before signed tokens. Anyone who
+        // learns an order id can present one, so this is off unless a migration needs it
+        @Value("${qr.legacy-order-ids.enabled:false}")
+        private boolean legacyQrOrderIdsEnabled;
+
+        // Bare ids are only honoured for orders placed before signed tokens were issued
+        @Value("${qr.legacy-order-ids.created-before:}")
+        private String legacyQrOrderIdsCreatedBefore;
+
+        public CheckoutSessionResponse createOrder(String userId, CreateOrderRequest request) {
                 // Get user's cart
                 Cart cart = cartRepository.findByUserId(userId)
                                 .orElseThrow(() -> new RuntimeException("Cart not found"));
@@ -49,8 +97,20 @@ public class OrderService {
                         if (request.getPickupTime() == null || request.getPickupTime().trim().isEmpty()) {
                                 throw new RuntimeException("Pickup time is required for scheduled orders");
                         }
+                        if (parsePickupAt(request.getPickupDate(), request.getPickupTime()) == null) {
+                                throw new RuntimeException("Invalid pickup date or time");
+                        }
                 }
 
+                // Group cart items by canteen
+                Map<String, List<CartItem>> itemsByCanteen = groupItemsByCanteen(cart.getItems());
+
+                // Hold a place in each canteen's pickup slot before any points are redeemed
+                Map<String, String> pickupSlotIds = request.getOrderType().equals("LATER")
+                                ? pickupSlotService.reserveAll(itemsByCanteen.keySet(),
+                                                parsePickupAt(request.getPickupDate(), request.getPickupTime()))
+                                : Map.of();
+
                 // Calculate total for all orders (for proportional discount split)
                 double sessionTotal = cart.getItems().stream()
                                 .mapToDouble(item -> item.getPrice() * item.getQuantity())
@@ -67,15 +127,15 @@ public class OrderService {
                         try {
                                 loyaltyService.redeemPoints(userId, pointsToRedeem);
                         } catch (Exception e) {
+                                pickupSlotService.releaseAll(pickupSlotIds.values());
                                 throw new RuntimeException("Failed to redeem points: " + e.getMessage());
                         }
                 }
 
-                // Group cart items by canteen
-                Map<String, List<CartItem>> itemsByCanteen = groupItemsByCanteen(cart.getItems());
-
-                // Create separate orders for each canteen
-                List<OrderResponse> createdOrders = new ArrayList<>();
+                // Build one order per canteen under a shared checkout session
+                String checkoutSessionId = UUID.randomUUID().toString();
+                java.time.LocalDateTime placedAt = java.time.LocalDateTime.now();
+                List<Order> orders = new ArrayList<>();
 
                 for (Map.Entry<String, List<CartItem>> entry : itemsByCanteen.entrySet()) {
                         String canteenId = entry.getKey();
@@ -110,6 +170,8 @@ public class OrderService {
                         // Create order for this canteen
                         Order order = new Order();
                         order.setUserId(userId);
+                        order.setCheckoutSessionId(checkoutSessionId);
+                        order.setCanteenIds(new ArrayList<>(List.of(canteenId)));
                         order.setOrderItems(orderItems);
                         order.setCustomerName(request.getCustomerName());
                         order.setCustomerEmail(request.getCustomerEmail());
@@ -121,15 +183,16 @@ public class OrderService {
                         // Set pickup date/time based on order type
                         if (request.getOrderType().equals("NOW")) {
                                 // For NOW orders, set current date and time
-                                java.time.LocalDate currentDate = java.time.LocalDate.now();
-                                java.time.LocalTime currentTime = java.time.LocalTime.now();
-                                order.setPickupDate(currentDate.toString());
-                                order.setPickupTime(currentTime
+                                order.setPickupDate(placedAt.toLocalDate().toString());
+                                order.setPickupTime(placedAt.toLocalTime()
                                                 .format(java.time.format.DateTimeFormatter.ofPattern("HH:mm")));
+                                order.setPickupAt(placedAt);
                         } else {
                                 // For LATER orders, use provided date/time
                                 order.setPickupDate(request.getPickupDate());
                                 order.setPickupTime(request.getPickupTime());
+                                order.setPickupAt(parsePickupAt(request.getPickupDate(), request.getPickupTime()));
+                                order.setPickupSlotId(pickupSlotIds.get(canteenId));
                         }
 
                         order.setTotalAmount(canteenSubtotal - canteenDiscount);
@@ -137,11 +200,28 @@ public class OrderService {
                         order.setLoyaltyPointsRedeemed(canteenPointsRedeemed);
                         order.setPaymentStatus("pending");
 
-                        Order savedOrder = orderRepository.save(order);
-                        createdOrders.add(convertToResponse(savedOrder));
+                        orders.add(order);
                 }
 
-                return createdOrders;
+                // Persist every order of the session in a single batched insert
+                List<Order> savedOrders;
+                try {
+                        savedOrders = orderRepository.insert(orders);
+                } catch (RuntimeException e) {
+                        pickupSlotService.releaseAll(pickupSlotIds.values());
+                        throw e;
+                }
+                // Unpaid orders are not active yet; this keeps the index rule in one place
+                savedOrders.forEach(activeOrderIndex::apply);
+
+                List<OrderResponse> createdOrders = savedOrders.stream()
+                                .map(this::convertToResponse)
+                                .collect(Collectors.toList());
+                double checkoutTotal = savedOrders.stream()
+                                .mapToDouble(Order::getTotalAmount)
+                                .sum();
+
+                return new CheckoutSessionResponse(checkoutSessionId, createdOrders, checkoutTotal);
         }
 
         // Helper method to group cart items by canteen
@@ -153,18 +233,112 @@ public class OrderService {
                 return grouped;
         }
 
-        public List<OrderResponse> getUserOrders(String userId) {
-                List<Order> orders = orderRepository.findByUserIdOrderByCreatedAtDesc(userId);
-                return orders.stream()
-                                .map(this::convertToResponse)
-                                .collect(Collectors.toList());
+        public OrderPage getUserOrders(String userId, OrderHistoryQuery query) {
+                List<Order> orders = findOrderPage(Criteria.where("userId").is(userId), query);
+                return toPage(orders, query, order -> convertToSummary(order, null));
         }
 
-        public List<OrderResponse> getCanteenOrders(String canteenId) {
-                List<Order> orders = orderRepository.findByOrderItemsCanteenIdOrderByCreatedAtDesc(canteenId);
-                return orders.stream()
-                                .map(order -> convertToResponseForCanteen(order, canteenId))
-                                .collect(Collectors.toList());
+        public OrderPage getCanteenOrders(String canteenId, OrderHistoryQuery query) {
+                List<Order> orders = findOrderPage(Criteria.where("canteenIds").is(canteenId), query);
+                return toPage(orders, query, order -> convertToSummary(order, canteenId));
+        }
+
+        public OrderStats getUserOrderStats(String userId) {
+                Double paidToday = orderRepository.sumUserAmountSince(userId, "succeeded",
+                                LocalDateTime.now().toLocalDate().atStartOfDay());
+                return new OrderStats(
+                                orderRepository.countByUserId(userId),
+                                orderRepository.countByUserIdAndPaymentStatus(userId, "succeeded"),
+                                paidToday != null ? paidToday : 0.0);
+        }
+
+        public OrderStats getCanteenOrderStats(String canteenId) {
+                Double paidToday = orderRepository.sumCanteenAmountSince(canteenId, "succeeded",
+                                LocalDateTime.now().toLocalDate().atStartOfDay());
+                return new OrderStats(
+                                orderRepository.countByCanteenIds(canteenId),
+                                orderRepository.countByCanteenIdsAndPaymentStatus(canteenId, "succeeded"),
+                                paidToday != null ? paidToday : 0.0);
+        }
+
+        // Fetches one page newest first, seeking past the cursor on (createdAt, _id) instead of skipping
+        // Both owners have a (owner, createdAt, _id) index, so the sort never happens in memory
+        private List<Order> findOrderPage(Criteria owner, OrderHistoryQuery query) {
+                List<Criteria> criteria = new ArrayList<>();
+                criteria.add(owner);
+
+                if (query.getStatus() != null && !query.getStatus().isEmpty()) {
+                        criteria.add(Criteria.where("orderStatus").in(query.getStatus().stream()
+                                        .map(status -> Order.OrderStatus.valueOf(status.toUpperCase()))
+                                        .collect(Collectors.toList())));
+                }
+
+                if (query.getFrom() != null) {
+                        criteria.add(Criteria.where("createdAt").gte(query.getFrom()));
+                }
+                if (query.getTo() != null) {
+                        criteria.add(Criteria.where("createdAt").lt(query.getTo()));
+                }
+
+                if (query.getCursor() != null && !query.getCursor().isEmpty()) {
+                        OrderCursor cursor = OrderCursor.decode(query.getCursor());
+                        criteria.add(Criteria.where("createdAt").lte(cursor.createdAt()));
+                        criteria.add(new Criteria().orOperator(
+                                        Criteria.where("createdAt").lt(cursor.createdAt()),
+                                        Criteria.where("_id").lt(new ObjectId(cursor.id()))));
+                }
+
+                Query mongoQuery = Query.query(new Criteria().andOperator(criteria))
+                                .with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"))
+                                .limit(pageSize(query) + 1);
+                // Lists never show the status history; older documents may also still carry a stored QR image
+                mongoQuery.fields().exclude("qrCodeBase64").exclude("statusHistory");
+                return mongoTemplate.find(mongoQuery, Order.class);
+        }
+
+        private OrderPage toPage(List<Order> orders, OrderHistoryQuery query,
+                        java.util.function.Function<Order, OrderSummary> mapper) {
+                int size = pageSize(query);
+                String nextCursor = null;
+                if (orders.size() > size) {
+                        orders = orders.subList(0, size);
+                        Order last = orders.get(size - 1);
+                        nextCursor = new OrderCursor(last.getCreatedAt(), last.getId()).encode();
+                }
+                return new OrderPage(
+                                orders.stream().map(mapper).collect(Collectors.toList()),
+                                nextCursor);
+        }
+
+        private int pageSize(OrderHistoryQuery query) {
+                if (query.getLimit() == null || query.getLimit() <= 0) {
+                        return defaultPageSize;
+                }
+                return Math.min(query.getLimit(), maxPageSize);
+        }
+
+        // Position of the last order on a page, handed to clients as an opaque token
+        private record OrderCursor(java.time.LocalDateTime createdAt, String id) {
+
+                String encode() {
+                        String raw = createdAt + "|" + id;
+                        return Base64.getUrlEncoder().withoutPadding()
+                                        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+                }
+
+                static OrderCursor decode(String token) {
+                        try {
+                                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                                int separator = raw.indexOf('|');
+                                String id = raw.substring(separator + 1);
+                                if (separator < 0 || !ObjectId.isValid(id)) {
+                                        throw new IllegalArgumentException("Invalid cursor");
+                                }
+                                return new OrderCursor(java.time.LocalDateTime.parse(raw.substring(0, separator)), id);
+                        } catch (RuntimeException e) {
+                                throw new IllegalArgumentException("Invalid cursor", e);
+                        }
+                }
         }
 
         public OrderResponse getOrderById(String orderId, String userId) {
@@ -180,28 +354,228 @@ public class OrderService {
                 return convertToResponse(order);
         }
 
-        public void updateOrderPaymentStatus(String orderId, String status, String paymentIntentId) {
-                Order order = orderRepository.findById(orderId)
+        /**
+         * Paid orders the canteen still has to prepare or hand over, served
+         * from the in-memory active-order index.
+         */
+        public List<OrderSummary> getActiveCanteenOrders(String canteenId) {
+                // Scheduled orders join the board once the releaser lets them through
+                return activeOrderIndex.getActiveOrders(canteenId).stream()
+                                .filter(order -> scheduledOrderReleaser.getReleaseAt(order.getId()) == null)
+                                .map(order -> convertToSummary(order, canteenId))
+                                .collect(Collectors.toList());
+        }
+
+        /**
+         * Returns what the pickup QR code of a paid order encodes: a signed
+         * token naming the order, its canteen and an expiry derived from the
+         * order's creation time, so the code stays the same until the signing
+         * secret or the order's canteen changes. Only the fields needed to
+         * build it are read.
+         */
+        public QrCodeContent getQrCodeContent(String orderId, String userId) {
+                Query query = Query.query(Criteria.where("_id").is(orderId).and("userId").is(userId));
+                query.fields().include("userId").include("paymentStatus").include("canteenIds")
+                                .include("orderItems.canteenId").include("createdAt");
+                Order order = mongoTemplate.findOne(query, Order.class);
+                if (order == null) {
+                        throw new RuntimeException("Order not found");
+                }
+                if (!"succeeded".equals(order.getPaymentStatus())) {
+                        throw new IllegalStateException("QR code is available once payment has succeeded");
+                }
+                // Orders not migrated to canteenIds yet still name their canteen on each item
+                String canteenId = order.getCanteenIds() != null && !order.getCanteenIds().isEmpty()
+                                ? order.getCanteenIds().get(0)
+                                : order.getOrderItems() == null ? null : order.getOrderItems().stream()
+                                                .map(Order.OrderItem::getCanteenId)
+                                                .filter(Objects::nonNull)
+                                                .findFirst()
+                                                .orElse(null);
+                if (canteenId == null) {
+                        throw new IllegalStateException("Order has no canteen to pick up from");
+                }
+
+                java.time.Instant expiresAt = order.getCreatedAt()
+                                .atZone(java.time.ZoneId.systemDefault())
+                                .toInstant()
+                                .plus(java.time.Duration.ofHours(qrTokenTtlHours));
+                return new QrCodeContent(qrTokenSigner.sign(order.getId(), canteenId, expiresAt), expiresAt);
+        }
+
+        /**
+         * Checks a scanned pickup code for the given canteen. Forged, expired
+         * and other-canteen codes are refused before any database access;
+         * a valid code costs a single fetch of the order.
+         */
+        public OrderResponse verifyPickup(String scannedData, String canteenId) {
+                String orderId;
+                boolean bareOrderId = false;
+                if (scannedData.indexOf('.') >= 0) {
+                        QrTokenSigner.QrToken token = qrTokenSigner.verify(scannedData);
+                        if (!token.canteenId().equals(canteenId)) {
+                                throw new InvalidQrTokenException("Order does not belong to this canteen");
+                        }
+                        orderId = token.orderId();
+                } else if (legacyQrOrderIdsEnabled) {
+                        orderId = scannedData;
+                        bareOrderId = true;
+                } else {
+                        throw new InvalidQrTokenException("Invalid QR code");
+                }
+
+                // Orders waiting for pickup are normally in the active index; anything else is fetched once
+                Order order = activeOrderIndex.find(canteenId, orderId)
+                                .or(() -> orderRepository.findById(orderId))
                                 .orElseThrow(() -> new RuntimeException("Order not found"));
-                order.setPaymentStatus(status);
-                order.setStripePaymentIntentId(paymentIntentId);
+                if (bareOrderId && !isLegacyQrOrder(order)) {
+                        throw new InvalidQrTokenException("Invalid QR code");
+                }
+
+                // Verify payment status
+                if (!"succeeded".equals(order.getPaymentStatus())) {
+                        throw new RuntimeException("Order payment not completed");
+                }
 
-                // Generate QR code for successful payments
-                if ("succeeded".equals(status)) {
-                        String qrCode = qrCodeService.generateQRCode(orderId);
-                        order.setQrCodeBase64(qrCode);
+                // Bare ids carry no canteen, so check it on the document
+                boolean belongsToCanteen = order.getOrderItems().stream()
+                                .anyMatch(item -> canteenId.equals(item.getCanteenId()));
+                if (!belongsToCanteen) {
+                        throw new RuntimeException("Order does not belong to this canteen");
+                }
 
-                        // Award loyalty points (1 point per Rs. 10 spent)
-                        try {
-                                loyaltyService.earnPoints(order.getUserId(), orderId, order.getTotalAmount());
-                        } catch (Exception e) {
-                                // Don't let loyalty failure affect payment processing
-                                org.slf4j.LoggerFactory.getLogger(OrderService.class)
-                                                .error("Failed to award loyalty points: {}", e.getMessage());
+                return convertToResponse(order);
+        }
+
+        /**
+         * Applies one payment's outcome to every order it covers: a single read
+         * of the orders still unpaid, one conditional update of all of them,
+         * one read of those the update changed and, on success, one outbox
+         * event for loyalty and notifications. Paid orders are never moved
+         * back, so a repeated or late event changes nothing, and when two
+         * payments race for the same orders each order is counted for the one
+         * whose update landed.
+         */
+        public void applyPaymentStatus(List<String> orderIds, String status, String paymentIntentId) {
+                Criteria unpaid = Criteria.where("_id").in(orderIds).and("paymentStatus").ne("succeeded");
+                Query query = Query.query(unpaid);
+                query.fields().exclude("statusHistory");
+                List<Order> orders = mongoTemplate.find(query, Order.class);
+                if (orders.isEmpty()) {
+                        return;
+                }
+
+                boolean paid = "succeeded".equals(status);
+                if (paid) {
+                        // Loyalty points and notifications follow on the outbox workers
+                        outboxService.enqueue(OutboxService.ORDER_PAID, paymentIntentId, Map.of(
+                                        "userId", orders.get(0).getUserId(),
+                                        "paymentIntentId", paymentIntentId,
+                                        "orderIds", orders.stream().map(Order::getId).collect(Collectors.toList())));
+                }
+
+                String updateId = UUID.randomUUID().toString();
+                Update update = new Update()
+                                .set("paymentStatus", status)
+                                .set("stripePaymentIntentId", paymentIntentId)
+                                .set("paymentUpdateId", updateId)
+                                .set("updatedAt", LocalDateTime.now());
+                if (paid) {
+                        // A paid order keeps its place for good; leaving the hold index keeps it small
+                        update.unset("pickupSlotId");
+                }
+                if (mongoTemplate.updateMulti(Query.query(unpaid), update, Order.class).getModifiedCount() == 0) {
+                        return;
+                }
+                if (paid) {
+                        reclaimReleasedPickupSlots(orderIds);
+                }
+
+                // Only the orders this write changed are counted; a concurrent call that got there
+                // first left its own marker on the rest
+                Query changedQuery = Query.query(Criteria.where("_id").in(orderIds).and("paymentUpdateId").is(updateId));
+                changedQuery.fields().exclude("statusHistory");
+                for (Order order : mongoTemplate.find(changedQuery, Order.class)) {
+                        if (paid) {
+                                queueStatusService.recordTransition(order, null, order.getOrderStatus());
+                        }
+                        onOrderSaved(order);
+                }
+        }
+
+        // Orders whose hold lapsed before the payment landed take their place again. Runs after the
+        // payment is written: a sweep racing with it either finds the order paid or has already
+        // marked the released slot, which is seen here
+        private void reclaimReleasedPickupSlots(List<String> orderIds) {
+                Query query = Query.query(Criteria.where("_id").in(orderIds).and("releasedPickupSlotId").exists(true));
+                query.fields().include("releasedPickupSlotId");
+                for (Order order : mongoTemplate.find(query, Order.class)) {
+                        boolean claimed = mongoTemplate.updateFirst(
+                                        Query.query(Criteria.where("_id").is(order.getId())
+                                                        .and("releasedPickupSlotId").is(order.getReleasedPickupSlotId())),
+                                        new Update().unset("releasedPickupSlotId"),
+                                        Order.class).getModifiedCount() > 0;
+                        if (claimed) {
+                                pickupSlotService.reclaim(order.getReleasedPickupSlotId());
+                        }
+                }
+        }
+
+        // Without a cutover every order qualifies, which is only meant for a short migration window
+        private boolean isLegacyQrOrder(Order order) {
+                if (legacyQrOrderIdsCreatedBefore == null || legacyQrOrderIdsCreatedBefore.isBlank()) {
+                        return true;
+                }
+                return order.getCreatedAt() != null
+                                && order.getCreatedAt().isBefore(LocalDateTime.parse(legacyQrOrderIdsCreatedBefore.trim()));
+        }
+
+        public static String userTopic(String userId) {
+                return "user:" + userId;
+        }
+
+        public static String canteenTopic(String canteenId) {
+                return "canteen:" + canteenId;
+        }
+
+        /**
+         * Parses the pickup date (yyyy-MM-dd) and time (HH:mm) entered at
+         * checkout, or returns null if they are missing or malformed.
+         */
+        public static LocalDateTime parsePickupAt(String pickupDate, String pickupTime) {
+                if (pickupDate == null || pickupTime == null) {
+                        return null;
+                }
+                try {
+                        return LocalDateTime.of(java.time.LocalDate.parse(pickupDate.trim()),
+                                        java.time.LocalTime.parse(pickupTime.trim()));
+                } catch (java.time.format.DateTimeParseException e) {
+                        return null;
+                }
+        }
+
+        /**
+         * Pushes scheduled orders whose release time has come to their
+         * canteens' streams, so kitchen boards add them without refetching.
+         */
+        @Scheduled(fixedRateString = "${orders.release.tick-ms:1000}")
+        public void releaseScheduledOrders() {
+                for (Order tracked : scheduledOrderReleaser.releaseDue()) {
+                        for (String canteenId : tracked.getCanteenIds()) {
+                                activeOrderIndex.find(canteenId, tracked.getId()).ifPresent(order -> orderEventHub
+                                                .publish(canteenTopic(canteenId), "order", convertToSummary(order, canteenId)));
                         }
                 }
+        }
 
-                orderRepository.save(order);
+        // Refresh the in-memory views, then push the new state to the user's and canteens' streams
+        private void onOrderSaved(Order order) {
+                activeOrderIndex.apply(order);
+                scheduledOrderReleaser.track(order);
+                orderEventHub.publish(userTopic(order.getUserId()), "order", convertToSummary(order, null));
+                for (String canteenId : order.getCanteenIds()) {
+                        orderEventHub.publish(canteenTopic(canteenId), "order", convertToSummary(order, canteenId));
+                }
         }
 
         private OrderResponse convertToResponse(Order order) {
@@ -225,10 +599,10 @@ public class OrderService {
                                 order.getCustomerPhone(),
                                 order.getPickupDate(),
                                 order.getPickupTime(),
+                                order.getPickupAt(),
                                 order.getTotalAmount(),
                                 order.getPaymentStatus(),
                                 order.getStripePaymentIntentId(),
-                                order.getQrCodeBase64(),
                                 order.getOrderStatus() != null ? order.getOrderStatus().name() : "PENDING",
                                 order.getOrderType() != null ? order.getOrderType().name() : "LATER",
                                 order.getHasReview(),
@@ -236,14 +610,14 @@ public class OrderService {
                                 order.getReadyAt(),
                                 order.getCompletedAt(),
                                 order.getCreatedAt(),
-                                order.getUpdatedAt());
+                                order.getUpdatedAt(),
+                                estimateWaitMinutes(order));
         }
 
-        // Convert order to response, filtering items for a specific canteen
-        private OrderResponse convertToResponseForCanteen(Order order, String canteenId) {
-                // Filter order items to only include items from this canteen
+        // Convert order to a list entry; with a canteenId, only that canteen's items and total are included
+        private OrderSummary convertToSummary(Order order, String canteenId) {
                 List<OrderResponse.OrderItemDTO> itemDTOs = order.getOrderItems().stream()
-                                .filter(item -> item.getCanteenId().equals(canteenId))
+                                .filter(item -> canteenId == null || canteenId.equals(item.getCanteenId()))
                                 .map(item -> new OrderResponse.OrderItemDTO(
                                                 item.getMenuItemId(),
                                                 item.getName(),
@@ -254,12 +628,13 @@ public class OrderService {
                                                 item.getImageUrl()))
                                 .collect(Collectors.toList());
 
-                // Calculate total amount for this canteen's items only
-                double canteenTotal = itemDTOs.stream()
-                                .mapToDouble(item -> item.getPrice() * item.getQuantity())
-                                .sum();
+                Double totalAmount = canteenId == null
+                                ? order.getTotalAmount()
+                                : itemDTOs.stream()
+                                                .mapToDouble(item -> item.getPrice() * item.getQuantity())
+                                                .sum();
 
-                return new OrderResponse(
+                return new OrderSummary(
                                 order.getId(),
                                 order.getUserId(),
                                 itemDTOs,
@@ -268,10 +643,9 @@ public class OrderService {
                                 order.getCustomerPhone(),
                                 order.getPickupDate(),
                                 order.getPickupTime(),
-                                canteenTotal, // Use canteen-specific total instead of order total
+                                order.getPickupAt(),
+                                totalAmount,
                                 order.getPaymentStatus(),
-                                order.getStripePaymentIntentId(),
-                                order.getQrCodeBase64(),
                                 order.getOrderStatus() != null ? order.getOrderStatus().name() : "PENDING",
                                 order.getOrderType() != null ? order.getOrderType().name() : "LATER",
                                 order.getHasReview(),
@@ -279,62 +653,68 @@ public class OrderService {
                                 order.getReadyAt(),
                                 order.getCompletedAt(),
                                 order.getCreatedAt(),
-                                order.getUpdatedAt());
+                                order.getUpdatedAt(),
+                                estimateWaitMinutes(order),
+                                scheduledOrderReleaser.getReleaseAt(order.getId()));
         }
 
-        public OrderResponse updateOrderStatus(String orderId, String newStatus, String canteenId) {
-                Order order = orderRepository.findById(orderId)
-                                .orElseThrow(() -> new RuntimeException("Order not found"));
-
-                // Verify that the order belongs to this canteen
-                boolean belongsToCanteen = order.getOrderItems().stream()
-                                .anyMatch(item -> item.getCanteenId().equals(canteenId));
-
-                if (!belongsToCanteen) {
-                        throw new RuntimeException("Unauthorized: Order does not belong to this canteen");
-                }
-
-                // Verify that payment has been completed
-                if (!"succeeded".equals(order.getPaymentStatus())) {
-                        throw new RuntimeException(
-                                        "Cannot update order status: Payment not completed. Current payment status: "
-                                                        + order.getPaymentStatus());
+        private Integer estimateWaitMinutes(Order order) {
+                if (order.getCanteenIds().isEmpty()) {
+                        return null;
                 }
+                return prepTimeEstimator.remainingMinutes(order,
+                                queueStatusService.queuedCount(order.getCanteenIds().get(0)));
+        }
 
-                Order.OrderStatus currentStatus = order.getOrderStatus();
+        /**
+         * Moves a paid order of the canteen one step forward in a single
+         * conditional write. The write only matches while the order is still in
+         * the status the target follows, so of two concurrent requests for the
+         * same step exactly one succeeds and the other is rejected.
+         */
+        public OrderResponse updateOrderStatus(String orderId, String newStatus, String canteenId) {
                 Order.OrderStatus targetStatus = Order.OrderStatus.valueOf(newStatus);
-
-                // Validate status transition (can only move forward)
-                if (!isValidStatusTransition(currentStatus, targetStatus)) {
-                        throw new RuntimeException(
-                                        "Invalid status transition from " + currentStatus + " to " + targetStatus);
-                }
-
-                // Record status change in history
-                Order.StatusChange statusChange = new Order.StatusChange(
-                                currentStatus,
-                                targetStatus,
-                                java.time.LocalDateTime.now(),
-                                canteenId);
-                order.getStatusHistory().add(statusChange);
-
-                // Update status and timestamps
-                order.setOrderStatus(targetStatus);
+                Order.OrderStatus currentStatus = previousStatus(targetStatus);
+                java.time.LocalDateTime now = java.time.LocalDateTime.now();
+
+                Query query = Query.query(Criteria.where("_id").is(orderId)
+                                .and("orderItems.canteenId").is(canteenId)
+                                .and("paymentStatus").is("succeeded")
+                                .and("orderStatus").is(currentStatus));
+                query.fields().exclude("statusHistory");
+
+                // Record status change in history and set the matching timestamp
+                Update update = new Update()
+                                .set("orderStatus", targetStatus)
+                                .set("updatedAt", now)
+                                .push("statusHistory", new Order.StatusChange(currentStatus, targetStatus, now, canteenId));
                 switch (targetStatus) {
                         case PREPARING:
-                                order.setPreparedAt(java.time.LocalDateTime.now());
+                                update.set("preparedAt", now);
                                 break;
                         case READY:
-                                order.setReadyAt(java.time.LocalDateTime.now());
+                                update.set("readyAt", now);
                                 break;
                         case COMPLETED:
-                                order.setCompletedAt(java.time.LocalDateTime.now());
+                                update.set("completedAt", now);
                                 break;
                         default:
                                 break;
                 }
 
-                Order updatedOrder = orderRepository.save(order);
+                Order updatedOrder = currentStatus != null
+                                ? mongoTemplate.findAndModify(query, update,
+                                                FindAndModifyOptions.options().returnNew(true), Order.class)
+                                : null;
+                if (updatedOrder == null) {
+                        throw transitionRejected(orderId, targetStatus, canteenId);
+                }
+                queueStatusService.recordTransition(updatedOrder, currentStatus, targetStatus);
+                if (targetStatus == Order.OrderStatus.READY) {
+                        prepTimeEstimator.recordReady(updatedOrder.getCanteenIds(),
+                                        updatedOrder.getPreparedAt(), updatedOrder.getReadyAt());
+                }
+                onOrderSaved(updatedOrder);
 
                 // Send push notification about status change
                 try {
@@ -348,23 +728,45 @@ public class OrderService {
                 return convertToResponse(updatedOrder);
         }
 
-        private boolean isValidStatusTransition(Order.OrderStatus current, Order.OrderStatus target) {
-                // Define valid transitions (can only move forward)
-                if (current == target) {
-                        return false; // No point in updating to same status
-                }
-
-                switch (current) {
-                        case PENDING:
-                                return target == Order.OrderStatus.PREPARING;
+        // Orders only move forward, one step at a time
+        private static Order.OrderStatus previousStatus(Order.OrderStatus target) {
+                switch (target) {
                         case PREPARING:
-                                return target == Order.OrderStatus.READY;
+                                return Order.OrderStatus.PENDING;
                         case READY:
-                                return target == Order.OrderStatus.COMPLETED;
+                                return Order.OrderStatus.PREPARING;
                         case COMPLETED:
-                                return false; // Cannot transition from completed
+                                return Order.OrderStatus.READY;
                         default:
-                                return false;
+                                return null;
+                }
+        }
+
+        // Only reached when the conditional update matched nothing, so the extra read is off the hot path
+        private RuntimeException transitionRejected(String orderId, Order.OrderStatus targetStatus,
+                        String canteenId) {
+                Query query = Query.query(Criteria.where("_id").is(orderId));
+                query.fields().include("orderItems.canteenId", "paymentStatus", "orderStatus");
+                Order order = mongoTemplate.findOne(query, Order.class);
+                if (order == null) {
+                        return new RuntimeException("Order not found");
+                }
+
+                // Verify that the order belongs to this canteen
+                boolean belongsToCanteen = order.getOrderItems().stream()
+                                .anyMatch(item -> canteenId.equals(item.getCanteenId()));
+                if (!belongsToCanteen) {
+                        return new RuntimeException("Unauthorized: Order does not belong to this canteen");
                 }
+
+                // Verify that payment has been completed
+                if (!"succeeded".equals(order.getPaymentStatus())) {
+                        return new RuntimeException(
+                                        "Cannot update order status: Payment not completed. Current payment status: "
+                                                        + order.getPaymentStatus());
+                }
+
+                return new RuntimeException(
+                                "Invalid status transition from " + order.getOrderStatus() + " to " + targetStatus);
         }
 }
@@ -0,0 +1,300 @@
+package com.campuseats.service;
+
+import com.campuseats.model.OutboxEvent;
+import com.campuseats.model.Order;
+import com.campuseats.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Durable queue of side effects that must not run on the request thread.
+ * Callers record an event with {@link #enqueue}; a scheduled dispatcher
+ * claims due events and hands them to a bounded worker pool. A failed event
+ * is retried with exponential backoff and marked DEAD once it runs out of
+ * attempts. Handlers record each completed step, so a retry never repeats
+ * work that already succeeded. A claim is identified by the event's attempt
+ * number: a worker whose lease ran out and whose event was claimed again
+ * stops at its next step and cannot overwrite the newer claim's outcome.
+ */
+@Service
+@Slf4j
+public class OutboxService {
+
+    public static final String ORDER_PAID = "ORDER_PAID";
+
+    private static final String STEP_LOYALTY = "loyalty";
+    private static final String STEP_NOTIFICATION = "notification";
+
+    private final MongoTemplate mongoTemplate;
+    private final OrderRepository orderRepository;
+    private final LoyaltyService loyaltyService;
+    private final PushNotificationService pushNotificationService;
+    private final ThreadPoolExecutor executor;
+    private final int maxAttempts;
+    private final long retryBaseMs;
+    private final long leaseMs;
+
+    private final Counter processedCounter;
+    private final Counter retriedCounter;
+    private final Counter deadCounter;
+
+    public OutboxService(MongoTemplate mongoTemplate,
+            OrderRepository orderRepository,
+            LoyaltyService loyaltyService,
+            PushNotificationService pushNotificationService,
+            MeterRegistry meterRegistry,
+            @Value("${outbox.worker-threads:4}") int workerThreads,
+            @Value("${outbox.queue-capacity:100}") int queueCapacity,
+            @Value("${outbox.max-attempts:8}") int maxAttempts,
+            @Value("${outbox.retry-base-ms:2000}") long retryBaseMs,
+            @Value("${outbox.lease-ms:60000}") long leaseMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.orderRepository = orderRepository;
+        this.loyaltyService = loyaltyService;
+        this.pushNotificationService = pushNotificationService;
+        this.maxAttempts = maxAttempts;
+        this.retryBaseMs = retryBaseMs;
+        this.leaseMs = leaseMs;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                workerThreads,
+                workerThreads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "outbox-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.processedCounter = Counter.builder("outbox.processed")
+                .description("Outbox events carried out")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("outbox.retried")
+                .description("Outbox event attempts that failed and were rescheduled")
+                .register(meterRegistry);
+        this.deadCounter = Counter.builder("outbox.dead")
+                .description("Outbox events given up after the last attempt")
+                .register(meterRegistry);
+        Gauge.builder("outbox.queue.depth", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            IndexOperations indexOps = mongoTemplate.indexOps(OutboxEvent.class);
+            new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                    .resolveIndexFor(OutboxEvent.class)
+                    .forEach(indexOps::ensureIndex);
+        } catch (Exception e) {
+            log.warn("Could not ensure outbox indexes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Records an event for later processing. Recording an event whose
+     * type and subject were already recorded does nothing.
+     */
+    public void enqueue(String type, String subjectId, Map<String, Object> payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(type + ":" + subjectId);
+        event.setType(type);
+        event.setPayload(payload);
+        event.setStatus(OutboxEvent.Status.PENDING);
+        event.setCreatedAt(Instant.now());
+        event.setNextAttemptAt(event.getCreatedAt());
+        try {
+            mongoTemplate.insert(event);
+        } catch (DuplicateKeyException e) {
+            log.debug("Outbox event {} already recorded", event.getId());
+        }
+    }
+
+    /**
+     * Claims due events while the worker pool has room. Events stuck in
+     * PROCESSING past their lease (e.g. after a crash) are claimed again.
+     */
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:500}")
+    public void dispatch() {
+        while (executor.getQueue().remainingCapacity() > 0) {
+            OutboxEvent event;
+            try {
+                event = claimNext();
+            } catch (Exception e) {
+                log.warn("Could not claim outbox events: {}", e.getMessage());
+                return;
+            }
+            if (event == null) {
+                return;
+            }
+            try {
+                executor.execute(() -> process(event));
+            } catch (RejectedExecutionException e) {
+                // Pool filled up meanwhile; the claim lapses and the event is picked up again
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private OutboxEvent claimNext() {
+        Instant now = Instant.now();
+        Query query = Query.query(Criteria.where("status")
+                .in(OutboxEvent.Status.PENDING, OutboxEvent.Status.PROCESSING)
+                .and("nextAttemptAt").lte(now))
+                .with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"));
+        Update update = new Update()
+                .set("status", OutboxEvent.Status.PROCESSING)
+                .set("nextAttemptAt", now.plusMillis(leaseMs))
+                .inc("attempts", 1);
+        return mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), OutboxEvent.class);
+    }
+
+    private void process(OutboxEvent event) {
+        try {
+            switch (event.getType()) {
+                case ORDER_PAID:
+                    handleOrderPaid(event);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown outbox event type " + event.getType());
+            }
+            mongoTemplate.updateFirst(claimOf(event),
+                    new Update()
+                            .set("status", OutboxEvent.Status.DONE)
+                            .set("completedAt", Instant.now())
+                            .unset("lastError"),
+                    OutboxEvent.class);
+            processedCounter.increment();
+        } catch (ClaimLostException e) {
+            log.warn("Outbox event {} was claimed again while attempt {} ran; leaving it to the new claim",
+                    event.getId(), event.getAttempts());
+        } catch (Exception e) {
+            fail(event, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void handleOrderPaid(OutboxEvent event) {
+        // One event per payment; events recorded before payments were applied in bulk name a single order
+        List<String> orderIds = event.getPayload().containsKey("orderIds")
+                ? (List<String>) event.getPayload().get("orderIds")
+                : List.of((String) event.getPayload().get("orderId"));
+        List<Order> orders = orderRepository.findAllById(orderIds);
+        if (orders.size() != orderIds.size()) {
+            throw new RuntimeException("Orders not found for " + event.getId());
+        }
+        // The event is recorded just before the orders are updated; wait for the payment to land
+        if (orders.stream().anyMatch(order -> !"succeeded".equals(order.getPaymentStatus()))) {
+            throw new RuntimeException("Orders of " + event.getId() + " are not paid yet");
+        }
+        // An order another payment got to first is that payment's to credit
+        String paymentIntentId = (String) event.getPayload().get("paymentIntentId");
+        List<Order> paidOrders = paymentIntentId == null ? orders : orders.stream()
+                .filter(order -> paymentIntentId.equals(order.getStripePaymentIntentId()))
+                .collect(Collectors.toList());
+        if (paidOrders.isEmpty()) {
+            return;
+        }
+
+        // Points are earned on the payment's total, in a single accrual
+        double totalAmount = paidOrders.stream().mapToDouble(Order::getTotalAmount).sum();
+        // Keyed by the event, so a step repeated after a lost claim credits the payment once
+        runStep(event, STEP_LOYALTY,
+                () -> loyaltyService.earnPoints(paidOrders.get(0).getUserId(), event.getId(),
+                        paidOrders.get(0).getId(), totalAmount));
+        runStep(event, STEP_NOTIFICATION,
+                () -> paidOrders.forEach(pushNotificationService::sendOrderPlacedNotification));
+    }
+
+    private void runStep(OutboxEvent event, String step, Runnable action) {
+        if (event.getCompletedSteps().contains(step)) {
+            return;
+        }
+        // Renew the lease first, so a slow earlier step does not let another worker start this one
+        renewClaim(event);
+        action.run();
+        if (mongoTemplate.updateFirst(claimOf(event),
+                new Update().addToSet("completedSteps", step),
+                OutboxEvent.class).getMatchedCount() == 0) {
+            throw new ClaimLostException();
+        }
+        event.getCompletedSteps().add(step);
+    }
+
+    private void renewClaim(OutboxEvent event) {
+        if (mongoTemplate.updateFirst(claimOf(event),
+                new Update().set("nextAttemptAt", Instant.now().plusMillis(leaseMs)),
+                OutboxEvent.class).getMatchedCount() == 0) {
+            throw new ClaimLostException();
+        }
+    }
+
+    // Matches the event only while this worker's claim is the current one
+    private static Query claimOf(OutboxEvent event) {
+        return Query.query(Criteria.where("_id").is(event.getId())
+                .and("status").is(OutboxEvent.Status.PROCESSING)
+                .and("attempts").is(event.getAttempts()));
+    }
+
+    private void fail(OutboxEvent event, Exception e) {
+        Update update = new Update().set("lastError", String.valueOf(e.getMessage()));
+        if (event.getAttempts() >= maxAttempts) {
+            update.set("status", OutboxEvent.Status.DEAD).unset("nextAttemptAt");
+            deadCounter.increment();
+            log.error("Outbox event {} failed after {} attempts: {}", event.getId(), event.getAttempts(),
+                    e.getMessage());
+        } else {
+            long delayMs = retryBaseMs << Math.min(event.getAttempts() - 1, 16);
+            update.set("status", OutboxEvent.Status.PENDING)
+                    .set("nextAttemptAt", Instant.now().plus(Duration.ofMillis(delayMs)));
+            retriedCounter.increment();
+            log.warn("Outbox event {} failed (attempt {}), retrying in {} ms: {}", event.getId(),
+                    event.getAttempts(), delayMs, e.getMessage());
+        }
+        mongoTemplate.updateFirst(claimOf(event), update, OutboxEvent.class);
+    }
+
+    private static final class ClaimLostException extends RuntimeException {
+        private ClaimLostException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -1,40 +1,136 @@
 package com.campuseats.service;
 
 import com.campuseats.dto.PaymentIntentResponse;
+import com.campuseats.model.Order;
+import com.campuseats.model.PaymentIntentRecord;
+import com.campuseats.repository.OrderRepository;
+import com.campuseats.repository.PaymentIntentRecordRepository;
 import com.stripe.Stripe;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
 import com.stripe.param.PaymentIntentCreateParams;
 import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
+@RequiredArgsConstructor
+@Slf4j
 public class PaymentService {
 
+    private static final Set<String> SETTLED_STATUSES = Set.of("succeeded", "canceled");
+    private static final int LOCK_STRIPES = 64;
+
+    private final PaymentIntentRecordRepository paymentIntentRecordRepository;
+    private final OrderRepository orderRepository;
+    private final OrderService orderService;
+    private final MongoTemplate mongoTemplate;
+
+    // Events of one intent are applied one at a time on this node
+    private final Object[] intentLocks = newLocks();
+
     @Value("${stripe.secret.key}")
     private String stripeSecretKey;
 
+    // Points the Stripe client at a stand-in server such as stripe-mock
+    @Value("${stripe.api-base:}")
+    private String stripeApiBase;
+
+    @Value("${payments.sync-after-ms:120000}")
+    private long syncAfterMs;
+
     @PostConstruct
     public void init() {
         Stripe.apiKey = stripeSecretKey;
+        if (StringUtils.hasText(stripeApiBase)) {
+            Stripe.overrideApiBase(stripeApiBase);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            IndexOperations indexOps = mongoTemplate.indexOps(PaymentIntentRecord.class);
+            new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                    .resolveIndexFor(PaymentIntentRecord.class)
+                    .forEach(indexOps::ensureIndex);
+        } catch (Exception e) {
+            log.warn("Could not ensure payment intent indexes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Unpaid orders of the caller that one payment should cover: the whole
+     * checkout session, or the single order for requests without one.
+     */
+    public List<Order> findPayableOrders(String userId, String checkoutSessionId, String orderId) {
+        if (!StringUtils.hasText(checkoutSessionId)) {
+            Order order = orderRepository.findByIdAndUserId(orderId, userId)
+                    .orElseThrow(() -> new RuntimeException("Order not found"));
+            checkoutSessionId = order.getCheckoutSessionId();
+            if (checkoutSessionId == null) {
+                return "succeeded".equals(order.getPaymentStatus()) ? List.of() : List.of(order);
+            }
+        }
+        return orderRepository.findByCheckoutSessionIdAndUserId(checkoutSessionId, userId).stream()
+                .filter(order -> !"succeeded".equals(order.getPaymentStatus()))
+                .collect(Collectors.toList());
     }
 
-    public PaymentIntentResponse createPaymentIntent(Double amount, String orderId) throws StripeException {
+    /**
+     * Creates a PaymentIntent for the orders and records which orders it pays
+     * for, so later confirmation relies on this record only.
+     */
+    public PaymentIntentResponse createPaymentIntent(String userId, List<Order> orders) throws StripeException {
+        double amount = orders.stream().mapToDouble(Order::getTotalAmount).sum();
         // Convert amount to cents (Stripe uses smallest currency unit)
-        long amountInCents = (long) (amount * 100);
+        long amountInCents = Math.round(amount * 100);
+        String checkoutSessionId = orders.get(0).getCheckoutSessionId();
 
-        PaymentIntentCreateParams params = PaymentIntentCreateParams.builder()
+        PaymentIntentCreateParams.Builder params = PaymentIntentCreateParams.builder()
                 .setAmount(amountInCents)
                 .setCurrency("lkr")
-                .putMetadata("orderId", orderId)
+                .putMetadata("orderId", orders.get(0).getId())
                 .setAutomaticPaymentMethods(
                         PaymentIntentCreateParams.AutomaticPaymentMethods.builder()
                                 .setEnabled(true)
-                                .build())
-                .build();
+                                .build());
+        if (checkoutSessionId != null) {
+            params.putMetadata("checkoutSessionId", checkoutSessionId);
+        }
 
-        PaymentIntent paymentIntent = PaymentIntent.create(params);
+        PaymentIntent paymentIntent = PaymentIntent.create(params.build());
+
+        Instant now = Instant.now();
+        PaymentIntentRecord record = new PaymentIntentRecord();
+        record.setId(paymentIntent.getId());
+        record.setUserId(userId);
+        record.setCheckoutSessionId(checkoutSessionId);
+        record.setOrderIds(orders.stream().map(Order::getId).collect(Collectors.toList()));
+        record.setAmount(paymentIntent.getAmount());
+        record.setStatus(paymentIntent.getStatus());
+        record.setCreatedAt(now);
+        record.setUpdatedAt(now);
+        paymentIntentRecordRepository.save(record);
 
         return new PaymentIntentResponse(
                 paymentIntent.getClientSecret(),
@@ -42,12 +138,100 @@ public class PaymentService {
                 paymentIntent.getAmount());
     }
 
-    public PaymentIntent retrievePaymentIntent(String paymentIntentId) throws StripeException {
-        return PaymentIntent.retrieve(paymentIntentId);
+    /**
+     * The locally known state of the caller's payment. Never calls Stripe.
+     */
+    public PaymentIntentRecord getPayment(String paymentIntentId, String userId) {
+        return paymentIntentRecordRepository.findById(paymentIntentId)
+                .filter(record -> record.getUserId().equals(userId))
+                .orElseThrow(() -> new RuntimeException("Payment not found"));
+    }
+
+    /**
+     * Applies a Stripe status observed at {@code observedAt}. Older
+     * observations and changes to a settled intent are ignored, so events
+     * arriving out of order cannot move an intent backwards. The intent's
+     * orders are updated before the record, so a failed order update leaves
+     * the intent unsettled and the redelivered event or the background sync
+     * applies it again; applying a status to the orders twice is harmless.
+     *
+     * @param attemptFailed whether Stripe reports an error for the latest
+     *        payment attempt; a new intent also waits for a payment method
+     *        but has not failed
+     * @return false if the intent is unknown or the update was stale
+     */
+    public boolean applyIntentStatus(String paymentIntentId, String status, boolean attemptFailed,
+            Instant observedAt) {
+        synchronized (intentLocks[(paymentIntentId.hashCode() & 0x7fffffff) % LOCK_STRIPES]) {
+            Criteria applicable = Criteria.where("_id").is(paymentIntentId)
+                    .and("status").nin(SETTLED_STATUSES)
+                    .orOperator(Criteria.where("lastEventAt").is(null),
+                            Criteria.where("lastEventAt").lte(observedAt));
+            PaymentIntentRecord record = mongoTemplate.findOne(Query.query(applicable), PaymentIntentRecord.class);
+            if (record == null) {
+                return false;
+            }
+
+            String orderPaymentStatus = toOrderPaymentStatus(status, attemptFailed);
+            if (orderPaymentStatus != null) {
+                orderService.applyPaymentStatus(record.getOrderIds(), orderPaymentStatus, paymentIntentId);
+            }
+
+            // Another node may have advanced the intent meanwhile; the condition keeps the newer state
+            Update update = new Update()
+                    .set("status", status)
+                    .set("lastEventAt", observedAt)
+                    .set("updatedAt", Instant.now());
+            return mongoTemplate.updateFirst(Query.query(applicable), update, PaymentIntentRecord.class)
+                    .getModifiedCount() > 0;
+        }
+    }
+
+    /**
+     * Catches up on intents whose webhook events have not arrived, e.g.
+     * while the endpoint was unreachable. Runs in the background only.
+     */
+    @Scheduled(fixedDelayString = "${payments.sync-interval-ms:60000}",
+            initialDelayString = "${payments.sync-interval-ms:60000}")
+    public void syncUnsettled() {
+        Instant now = Instant.now();
+        Query query = Query.query(Criteria.where("status").nin(SETTLED_STATUSES)
+                .and("createdAt").gte(now.minus(Duration.ofDays(1))).lte(now.minusMillis(syncAfterMs)))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt"))
+                .limit(50);
+        for (PaymentIntentRecord record : mongoTemplate.find(query, PaymentIntentRecord.class)) {
+            try {
+                PaymentIntent paymentIntent = PaymentIntent.retrieve(record.getId());
+                if (!paymentIntent.getStatus().equals(record.getStatus())) {
+                    applyIntentStatus(record.getId(), paymentIntent.getStatus(),
+                            paymentIntent.getLastPaymentError() != null, Instant.now());
+                }
+            } catch (Exception e) {
+                log.warn("Could not sync payment intent {}: {}", record.getId(), e.getMessage());
+            }
+        }
+    }
+
+    // Order payment status: "succeeded" or "failed"; null for states that do not settle the orders
+    private static String toOrderPaymentStatus(String intentStatus, boolean attemptFailed) {
+        switch (intentStatus) {
+            case "succeeded":
+                return "succeeded";
+            case "requires_payment_method":
+                // Every intent starts here; only a declined attempt fails the orders
+                return attemptFailed ? "failed" : null;
+            case "canceled":
+                return "failed";
+            default:
+                return null;
+        }
     }
 
-    public String getPaymentStatus(String paymentIntentId) throws StripeException {
-        PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
-        return paymentIntent.getStatus();
+    private static Object[] newLocks() {
+        Object[] locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
     }
 }
@@ -0,0 +1,410 @@
+package com.campuseats.service;
+
+import com.campuseats.dto.PickupSlotAvailability;
+import com.campuseats.model.Canteen;
+import com.campuseats.model.Order;
+import com.campuseats.model.PickupSlot;
+import com.campuseats.repository.CanteenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caps how many scheduled orders a canteen takes per pickup slot. Each slot
+ * has a counter document that only moves through conditional $inc updates,
+ * so the cap holds across nodes. A lock-striped copy of the counters in
+ * memory turns away requests for slots already known to be full and answers
+ * availability queries without touching Mongo; a scheduled refresh pulls in
+ * reservations made on other nodes.
+ */
+@Service
+@Slf4j
+public class PickupSlotService {
+
+    private static final DateTimeFormatter SLOT_KEY = DateTimeFormatter.ofPattern("HH:mm");
+    private static final int DEFAULT_SLOT_MINUTES = 15;
+    private static final long SLOT_RETENTION_DAYS = 2;
+
+    private final MongoTemplate mongoTemplate;
+    private final CanteenRepository canteenRepository;
+    private final long unpaidHoldMinutes;
+    private final Counter driftCounter;
+    private final Stripe[] stripes;
+
+    // canteenId -> slot settings, loaded on first use and dropped when the canteen changes
+    private final Map<String, SlotSettings> settings = new ConcurrentHashMap<>();
+
+    public PickupSlotService(MongoTemplate mongoTemplate,
+            CanteenRepository canteenRepository,
+            MeterRegistry meterRegistry,
+            @Value("${pickup-slots.stripes:32}") int stripeCount,
+            @Value("${pickup-slots.unpaid-hold-minutes:30}") long unpaidHoldMinutes) {
+        this.mongoTemplate = mongoTemplate;
+        this.canteenRepository = canteenRepository;
+        this.unpaidHoldMinutes = unpaidHoldMinutes;
+        this.driftCounter = Counter.builder("pickup.slots.drift")
+                .description("Pickup slot reservations corrected by refresh")
+                .register(meterRegistry);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            IndexOperations indexOps = mongoTemplate.indexOps(PickupSlot.class);
+            new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                    .resolveIndexFor(PickupSlot.class)
+                    .forEach(indexOps::ensureIndex);
+            refresh();
+        } catch (Exception e) {
+            log.warn("Could not load pickup slots: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Takes a place in the slot containing {@code pickupAt} at each canteen.
+     * Either every canteen has room or none of the places are kept.
+     *
+     * @return canteenId -> slot id, for canteens that limit their slots
+     * @throws PickupSlotUnavailableException if a slot is full
+     */
+    public Map<String, String> reserveAll(Collection<String> canteenIds, LocalDateTime pickupAt) {
+        Map<String, String> reserved = new LinkedHashMap<>();
+        try {
+            for (String canteenId : canteenIds) {
+                String slotId = reserve(canteenId, pickupAt);
+                if (slotId != null) {
+                    reserved.put(canteenId, slotId);
+                }
+            }
+        } catch (RuntimeException e) {
+            releaseAll(reserved.values());
+            throw e;
+        }
+        return reserved;
+    }
+
+    /**
+     * Takes a place in the slot containing {@code pickupAt}.
+     *
+     * @return the slot id to release the place with, or null if the canteen
+     *         does not limit this slot
+     * @throws PickupSlotUnavailableException if the slot is full
+     */
+    public String reserve(String canteenId, LocalDateTime pickupAt) {
+        SlotSettings slotSettings = settingsFor(canteenId);
+        LocalDateTime slotStart = slotSettings.slotStart(pickupAt);
+        Integer capacity = slotSettings.capacityAt(slotStart.toLocalTime());
+        if (capacity == null) {
+            return null;
+        }
+        String slotId = slotId(canteenId, slotStart);
+        if (tryReserve(canteenId, slotId, slotStart, capacity)) {
+            return slotId;
+        }
+        throw new PickupSlotUnavailableException(
+                "Pickup slot at " + slotStart.toLocalTime().format(SLOT_KEY) + " is full",
+                nextAvailable(canteenId, slotSettings, slotStart));
+    }
+
+    /**
+     * Gives back a place taken by {@link #reserve}. Null ids are ignored.
+     */
+    public void release(String slotId) {
+        if (slotId == null) {
+            return;
+        }
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(slotId).and("reserved").gt(0)),
+                new Update().inc("reserved", -1),
+                PickupSlot.class);
+        Stripe stripe = stripeFor(slotId);
+        synchronized (stripe) {
+            int[] reserved = stripe.slots.get(slotId);
+            if (reserved != null && reserved[0] > 0) {
+                reserved[0]--;
+            }
+        }
+    }
+
+    /**
+     * Takes a place again for an order that was paid after its place had
+     * been released. The payment has been taken, so the place is counted even
+     * if the slot has filled up meanwhile; later checkouts see it as full.
+     */
+    public void reclaim(String slotId) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(slotId)),
+                new Update().inc("reserved", 1),
+                PickupSlot.class);
+        Stripe stripe = stripeFor(slotId);
+        synchronized (stripe) {
+            int[] reserved = stripe.slots.get(slotId);
+            if (reserved != null) {
+                reserved[0]++;
+            }
+        }
+    }
+
+    public void releaseAll(Collection<String> slotIds) {
+        for (String slotId : slotIds) {
+            try {
+                release(slotId);
+            } catch (Exception e) {
+                log.warn("Could not release pickup slot {}: {}", slotId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Slots of a canteen's opening hours on one day, from memory.
+     */
+    public List<PickupSlotAvailability> getAvailability(String canteenId, LocalDate date) {
+        SlotSettings slotSettings = settingsFor(canteenId);
+        List<PickupSlotAvailability> slots = new ArrayList<>();
+        LocalDateTime closing = slotSettings.closingOn(date);
+        for (LocalDateTime slotStart = slotSettings.slotStart(date.atTime(slotSettings.opening));
+                slotStart.isBefore(closing);
+                slotStart = slotStart.plusMinutes(slotSettings.slotMinutes)) {
+            Integer capacity = slotSettings.capacityAt(slotStart.toLocalTime());
+            int reserved = reservedInMemory(slotId(canteenId, slotStart));
+            Integer available = capacity != null ? Math.max(0, capacity - reserved) : null;
+            slots.add(new PickupSlotAvailability(slotStart, capacity, reserved, available));
+        }
+        return slots;
+    }
+
+    /**
+     * Makes the next reservation reload the canteen's slot settings.
+     */
+    public void onCanteenChanged(String canteenId) {
+        settings.remove(canteenId);
+    }
+
+    /**
+     * Reloads the counters of upcoming slots from Mongo. A reservation made
+     * while the query runs may be overwritten; the next run corrects it.
+     */
+    @Scheduled(fixedDelayString = "${pickup-slots.refresh-ms:10000}",
+            initialDelayString = "${pickup-slots.refresh-ms:10000}")
+    public void refresh() {
+        LocalDateTime from = LocalDateTime.now().minusHours(1);
+        Map<String, Integer> loaded = new HashMap<>();
+        for (PickupSlot slot : mongoTemplate.find(
+                Query.query(Criteria.where("slotStart").gte(from)), PickupSlot.class)) {
+            loaded.put(slot.getId(), slot.getReserved());
+        }
+
+        int drift = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (Map.Entry<String, int[]> entry : stripe.slots.entrySet()) {
+                    int value = loaded.getOrDefault(entry.getKey(), 0);
+                    drift += Math.abs(entry.getValue()[0] - value);
+                    entry.getValue()[0] = value;
+                }
+            }
+        }
+        for (Map.Entry<String, Integer> entry : loaded.entrySet()) {
+            Stripe stripe = stripeFor(entry.getKey());
+            synchronized (stripe) {
+                int[] reserved = stripe.slots.get(entry.getKey());
+                if (reserved == null) {
+                    stripe.slots.put(entry.getKey(), new int[] { entry.getValue() });
+                    drift += entry.getValue();
+                }
+            }
+        }
+        // Slots gone from the query have passed
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.slots.keySet().retainAll(loaded.keySet());
+            }
+        }
+
+        if (drift > 0) {
+            driftCounter.increment(drift);
+            log.debug("Pickup slot counters refreshed: {} reservations corrected", drift);
+        }
+    }
+
+    /**
+     * Frees the places of scheduled orders left unpaid for longer than the
+     * hold. The order is detached from its slot first, so the place is given
+     * back once even when several nodes sweep at the same time. The slot is
+     * remembered on the order so a late payment can take the place again.
+     */
+    @Scheduled(fixedDelayString = "${pickup-slots.sweep-ms:60000}",
+            initialDelayString = "${pickup-slots.sweep-ms:60000}")
+    public void releaseUnpaid() {
+        // $exists lets the partial pickup_slot_hold_idx serve the query
+        Query query = Query.query(Criteria.where("pickupSlotId").exists(true)
+                .and("paymentStatus").ne("succeeded")
+                .and("createdAt").lt(LocalDateTime.now().minusMinutes(unpaidHoldMinutes)));
+        query.fields().include("pickupSlotId");
+        for (Order order : mongoTemplate.find(query, Order.class)) {
+            boolean detached = mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(order.getId())
+                            .and("pickupSlotId").is(order.getPickupSlotId())
+                            .and("paymentStatus").ne("succeeded")),
+                    new Update().unset("pickupSlotId").set("releasedPickupSlotId", order.getPickupSlotId()),
+                    Order.class).getModifiedCount() > 0;
+            if (detached) {
+                release(order.getPickupSlotId());
+            }
+        }
+    }
+
+    private boolean tryReserve(String canteenId, String slotId, LocalDateTime slotStart, int capacity) {
+        Stripe stripe = stripeFor(slotId);
+        int[] reserved;
+        synchronized (stripe) {
+            reserved = stripe.slots.computeIfAbsent(slotId, k -> new int[1]);
+            if (reserved[0] >= capacity) {
+                return false;
+            }
+            reserved[0]++;
+        }
+
+        // The in-memory place is held while Mongo decides, so local callers cannot overshoot meanwhile
+        try {
+            Query query = Query.query(Criteria.where("_id").is(slotId).and("reserved").lt(capacity));
+            Update update = new Update()
+                    .inc("reserved", 1)
+                    .setOnInsert("canteenId", canteenId)
+                    .setOnInsert("slotStart", slotStart)
+                    .setOnInsert("expiresAt", slotStart.plusDays(SLOT_RETENTION_DAYS)
+                            .atZone(ZoneId.systemDefault()).toInstant());
+            PickupSlot slot = mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), PickupSlot.class);
+            synchronized (stripe) {
+                reserved[0] = Math.max(reserved[0], slot.getReserved());
+            }
+            return true;
+        } catch (DuplicateKeyException e) {
+            // The document exists but is at capacity: other nodes filled the slot
+            synchronized (stripe) {
+                reserved[0] = Math.max(reserved[0] - 1, capacity);
+            }
+            return false;
+        } catch (RuntimeException e) {
+            synchronized (stripe) {
+                reserved[0] = Math.max(0, reserved[0] - 1);
+            }
+            throw e;
+        }
+    }
+
+    // The first later slot on the same day that memory shows with room
+    private LocalDateTime nextAvailable(String canteenId, SlotSettings slotSettings, LocalDateTime fullSlot) {
+        LocalDateTime closing = slotSettings.closingOn(fullSlot.toLocalDate());
+        for (LocalDateTime slotStart = fullSlot.plusMinutes(slotSettings.slotMinutes);
+                slotStart.isBefore(closing);
+                slotStart = slotStart.plusMinutes(slotSettings.slotMinutes)) {
+            Integer capacity = slotSettings.capacityAt(slotStart.toLocalTime());
+            if (capacity == null || reservedInMemory(slotId(canteenId, slotStart)) < capacity) {
+                return slotStart;
+            }
+        }
+        return null;
+    }
+
+    private int reservedInMemory(String slotId) {
+        Stripe stripe = stripeFor(slotId);
+        synchronized (stripe) {
+            int[] reserved = stripe.slots.get(slotId);
+            return reserved != null ? reserved[0] : 0;
+        }
+    }
+
+    private SlotSettings settingsFor(String canteenId) {
+        return settings.computeIfAbsent(canteenId, id -> new SlotSettings(canteenRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Canteen not found"))));
+    }
+
+    private Stripe stripeFor(String slotId) {
+        return stripes[(slotId.hashCode() & 0x7fffffff) % stripes.length];
+    }
+
+    private static String slotId(String canteenId, LocalDateTime slotStart) {
+        return canteenId + ":" + slotStart;
+    }
+
+    private static LocalTime parseTime(String value, LocalTime fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return LocalTime.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            return fallback;
+        }
+    }
+
+    private static final class Stripe {
+        // slotId -> places taken, as a one-element array updated in place
+        private final Map<String, int[]> slots = new HashMap<>();
+    }
+
+    private static final class SlotSettings {
+        private final int slotMinutes;
+        private final Integer capacity;
+        private final Map<String, Integer> overrides;
+        private final LocalTime opening;
+        private final LocalTime closing;
+
+        private SlotSettings(Canteen canteen) {
+            Integer minutes = canteen.getPickupSlotMinutes();
+            this.slotMinutes = minutes != null && minutes > 0 ? minutes : DEFAULT_SLOT_MINUTES;
+            this.capacity = canteen.getPickupSlotCapacity();
+            this.overrides = canteen.getPickupSlotCapacityOverrides() != null
+                    ? Map.copyOf(canteen.getPickupSlotCapacityOverrides())
+                    : Map.of();
+            this.opening = parseTime(canteen.getOpeningTime(), LocalTime.MIDNIGHT);
+            this.closing = parseTime(canteen.getClosingTime(), null);
+        }
+
+        private LocalDateTime slotStart(LocalDateTime pickupAt) {
+            int minuteOfDay = pickupAt.getHour() * 60 + pickupAt.getMinute();
+            return pickupAt.toLocalDate().atStartOfDay().plusMinutes(minuteOfDay - minuteOfDay % slotMinutes);
+        }
+
+        private Integer capacityAt(LocalTime slotStart) {
+            Integer override = overrides.get(slotStart.format(SLOT_KEY));
+            return override != null ? override : capacity;
+        }
+
+        private LocalDateTime closingOn(LocalDate date) {
+            return closing != null && closing.isAfter(opening) ? date.atTime(closing) : date.plusDays(1).atStartOfDay();
+        }
+    }
+}
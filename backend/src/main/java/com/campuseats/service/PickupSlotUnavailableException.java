@@ -0,0 +1,21 @@
+package com.campuseats.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Thrown when a scheduled order asks for a pickup slot that is already
+ * full. Carries the next slot with room that day, if any.
+ */
+public class PickupSlotUnavailableException extends RuntimeException {
+
+    private final LocalDateTime suggestedPickupAt;
+
+    public PickupSlotUnavailableException(String message, LocalDateTime suggestedPickupAt) {
+        super(message);
+        this.suggestedPickupAt = suggestedPickupAt;
+    }
+
+    public LocalDateTime getSuggestedPickupAt() {
+        return suggestedPickupAt;
+    }
+}
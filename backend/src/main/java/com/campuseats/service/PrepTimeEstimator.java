@@ -0,0 +1,218 @@
+package com.campuseats.service;
+
+import com.campuseats.model.Canteen;
+import com.campuseats.model.Order;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live preparation-time statistics per canteen, learned from actual
+ * PREPARING to READY durations. Each READY transition updates an
+ * exponentially weighted mean, a fixed window of recent durations for
+ * percentiles, and the average gap between orders becoming ready (the
+ * kitchen's throughput), all in constant time. The percentile is only
+ * computed when an estimate is read after new samples, and the result is
+ * kept as an immutable Estimate until the next one, so computing a wait
+ * time never touches order history. Until a canteen has samples, its
+ * registered averagePreparationTime is used.
+ */
+@Component
+@Slf4j
+public class PrepTimeEstimator {
+
+    private final MongoTemplate mongoTemplate;
+    private final double alpha;
+    private final int windowSize;
+    private final int defaultMinutes;
+    private final int warmupDays;
+
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+    private final Map<String, Integer> configuredMinutes = new ConcurrentHashMap<>();
+
+    public PrepTimeEstimator(MongoTemplate mongoTemplate,
+            @Value("${prep-time.ewma-alpha:0.2}") double alpha,
+            @Value("${prep-time.window-size:100}") int windowSize,
+            @Value("${prep-time.default-minutes:15}") int defaultMinutes,
+            @Value("${prep-time.warmup-days:7}") int warmupDays) {
+        this.mongoTemplate = mongoTemplate;
+        this.alpha = alpha;
+        this.windowSize = windowSize;
+        this.defaultMinutes = defaultMinutes;
+        this.warmupDays = warmupDays;
+    }
+
+    /**
+     * Replays recent preparation times so estimates are meaningful right
+     * after a restart. Runs once; reads are served from memory afterwards.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            Query query = Query.query(Criteria.where("readyAt").gte(LocalDateTime.now().minusDays(warmupDays))
+                    .and("preparedAt").ne(null))
+                    .with(Sort.by(Sort.Direction.ASC, "readyAt"));
+            query.fields().include("canteenIds").include("preparedAt").include("readyAt");
+            List<Order> orders = mongoTemplate.find(query, Order.class);
+            orders.forEach(order -> recordReady(order.getCanteenIds(), order.getPreparedAt(), order.getReadyAt()));
+            log.info("Preparation time estimator warmed up from {} orders", orders.size());
+        } catch (Exception e) {
+            log.warn("Could not warm up preparation time estimator: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Records an order that has just become READY.
+     */
+    public void recordReady(List<String> canteenIds, LocalDateTime preparedAt, LocalDateTime readyAt) {
+        if (preparedAt == null || readyAt == null || readyAt.isBefore(preparedAt)) {
+            return;
+        }
+        double seconds = Duration.between(preparedAt, readyAt).getSeconds();
+        for (String canteenId : canteenIds) {
+            stats.computeIfAbsent(canteenId, k -> new Stats(windowSize)).record(seconds, readyAt, alpha);
+        }
+    }
+
+    /**
+     * Keeps the registered preparation times used before samples exist.
+     */
+    public void setConfiguredTimes(List<Canteen> canteens) {
+        for (Canteen canteen : canteens) {
+            if (canteen.getAveragePreparationTime() != null && canteen.getAveragePreparationTime() > 0) {
+                configuredMinutes.put(canteen.getId(), canteen.getAveragePreparationTime());
+            }
+        }
+    }
+
+    public Estimate estimate(String canteenId) {
+        Stats canteenStats = stats.get(canteenId);
+        Estimate estimate = canteenStats != null ? canteenStats.estimate() : null;
+        if (estimate != null) {
+            return estimate;
+        }
+        double minutes = configuredMinutes.getOrDefault(canteenId, defaultMinutes);
+        return new Estimate(minutes, minutes, minutes);
+    }
+
+    /**
+     * Minutes until a paid order is expected to be ready, or null once it is
+     * no longer in the queue. A pending order waits behind the rest of the
+     * queue; a preparing order only for what is left of its own preparation.
+     */
+    public Integer remainingMinutes(Order order, int queuedOrders) {
+        if (!"succeeded".equals(order.getPaymentStatus()) || order.getCanteenIds().isEmpty()
+                || (order.getOrderStatus() != Order.OrderStatus.PENDING
+                        && order.getOrderStatus() != Order.OrderStatus.PREPARING)) {
+            return null;
+        }
+        Estimate estimate = estimate(order.getCanteenIds().get(0));
+        if (order.getOrderStatus() == Order.OrderStatus.PENDING) {
+            return estimate.waitMinutes(Math.max(0, queuedOrders - 1));
+        }
+        if (order.getOrderStatus() == Order.OrderStatus.PREPARING && order.getPreparedAt() != null) {
+            double elapsed = Duration.between(order.getPreparedAt(), LocalDateTime.now()).getSeconds() / 60d;
+            return (int) Math.ceil(Math.max(0d, estimate.prepMinutes - elapsed));
+        }
+        return null;
+    }
+
+    /**
+     * Immutable view of a canteen's statistics, in minutes.
+     */
+    public static final class Estimate {
+        private final double prepMinutes;
+        private final double p90Minutes;
+        private final double readyIntervalMinutes;
+
+        private Estimate(double prepMinutes, double p90Minutes, double readyIntervalMinutes) {
+            this.prepMinutes = prepMinutes;
+            this.p90Minutes = p90Minutes;
+            this.readyIntervalMinutes = readyIntervalMinutes;
+        }
+
+        public double getPrepMinutes() {
+            return prepMinutes;
+        }
+
+        // Orders ahead leave the kitchen at the observed throughput, then this one is prepared
+        public int waitMinutes(int ordersAhead) {
+            return (int) Math.ceil(ordersAhead * readyIntervalMinutes + prepMinutes);
+        }
+
+        public int maxWaitMinutes(int ordersAhead) {
+            return (int) Math.ceil(ordersAhead * readyIntervalMinutes + p90Minutes);
+        }
+    }
+
+    private static final class Stats {
+        private final double[] window;
+        private int next;
+        private int size;
+        private double ewmaSeconds = Double.NaN;
+        private double ewmaIntervalSeconds = Double.NaN;
+        private LocalDateTime lastReadyAt;
+        private volatile Estimate estimate;
+
+        private Stats(int windowSize) {
+            this.window = new double[windowSize];
+        }
+
+        private synchronized void record(double seconds, LocalDateTime readyAt, double alpha) {
+            ewmaSeconds = Double.isNaN(ewmaSeconds) ? seconds : alpha * seconds + (1 - alpha) * ewmaSeconds;
+            window[next] = seconds;
+            next = (next + 1) % window.length;
+            size = Math.min(size + 1, window.length);
+
+            if (lastReadyAt != null && readyAt.isAfter(lastReadyAt)) {
+                // Idle stretches are not throughput; a gap never counts for more than one preparation
+                double interval = Math.min(Duration.between(lastReadyAt, readyAt).getSeconds(), ewmaSeconds);
+                ewmaIntervalSeconds = Double.isNaN(ewmaIntervalSeconds)
+                        ? interval
+                        : alpha * interval + (1 - alpha) * ewmaIntervalSeconds;
+            }
+            if (lastReadyAt == null || readyAt.isAfter(lastReadyAt)) {
+                lastReadyAt = readyAt;
+            }
+
+            // Rebuilt by the next read, so a burst of READY transitions sorts the window once
+            estimate = null;
+        }
+
+        private Estimate estimate() {
+            Estimate current = estimate;
+            return current != null ? current : computeEstimate();
+        }
+
+        private synchronized Estimate computeEstimate() {
+            if (estimate == null && size > 0) {
+                double[] sorted = Arrays.copyOf(window, size);
+                Arrays.sort(sorted);
+                double interval = Double.isNaN(ewmaIntervalSeconds) ? ewmaSeconds : ewmaIntervalSeconds;
+                estimate = new Estimate(
+                        ewmaSeconds / 60d,
+                        percentile(sorted, 0.9) / 60d,
+                        interval / 60d);
+            }
+            return estimate;
+        }
+
+        private static double percentile(double[] sorted, double p) {
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+}
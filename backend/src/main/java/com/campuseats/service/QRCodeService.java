@@ -8,14 +8,17 @@ import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
 import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Service
@@ -24,43 +27,105 @@ public class QRCodeService {
 
     private static final int QR_CODE_SIZE = 300;
 
+    public enum Format {
+        PNG,
+        SVG
+    }
+
+    // Rendered images keyed by format and content; a re-signed token is simply a new entry
+    private final Map<String, byte[]> rendered;
+
+    public QRCodeService(@Value("${qr.cache.max-entries:500}") int maxEntries) {
+        this.rendered = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
     /**
-     * Generates a QR code for the given order ID
-     * 
-     * @param orderId The order ID to encode in the QR code
-     * @return Base64-encoded PNG image of the QR code
+     * Renders a QR code for the given content, reusing a previous rendering
+     * when one is still cached.
+     *
+     * @param content The text to encode in the QR code
+     * @param format  PNG (300x300) or SVG (one unit per module, scalable)
+     * @return The encoded image bytes
      */
-    public String generateQRCode(String orderId) {
+    public byte[] render(String content, Format format) {
+        String key = format + ":" + content;
+        synchronized (rendered) {
+            byte[] cached = rendered.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        byte[] image = format == Format.SVG ? renderSvg(content) : renderPng(content);
+        synchronized (rendered) {
+            rendered.put(key, image);
+        }
+        return image;
+    }
+
+    /**
+     * Strong validator for a rendering, derived from its inputs so it can be
+     * checked without rendering.
+     */
+    public String etag(String content, Format format) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((format + ":" + QR_CODE_SIZE + ":" + content).getBytes(StandardCharsets.UTF_8));
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private byte[] renderPng(String content) {
         try {
-            // Configure QR code generation hints
-            Map<EncodeHintType, Object> hints = new HashMap<>();
-            hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.H); // High error correction
-            hints.put(EncodeHintType.MARGIN, 1); // Minimal margin
-
-            // Generate QR code matrix
-            QRCodeWriter qrCodeWriter = new QRCodeWriter();
-            BitMatrix bitMatrix = qrCodeWriter.encode(
-                    orderId,
-                    BarcodeFormat.QR_CODE,
-                    QR_CODE_SIZE,
-                    QR_CODE_SIZE,
-                    hints);
-
-            // Convert to BufferedImage
-            BufferedImage qrImage = MatrixToImageWriter.toBufferedImage(bitMatrix);
-
-            // Convert to Base64 string
+            BitMatrix bitMatrix = encode(content, QR_CODE_SIZE);
             ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            ImageIO.write(qrImage, "PNG", outputStream);
-            byte[] imageBytes = outputStream.toByteArray();
-            String base64Image = Base64.getEncoder().encodeToString(imageBytes);
+            MatrixToImageWriter.writeToStream(bitMatrix, "PNG", outputStream);
+            return outputStream.toByteArray();
+        } catch (WriterException | IOException e) {
+            log.error("Error generating QR code for {}: {}", content, e.getMessage());
+            throw new RuntimeException("Failed to generate QR code", e);
+        }
+    }
 
-            log.info("Successfully generated QR code for order: {}", orderId);
-            return "data:image/png;base64," + base64Image;
+    private byte[] renderSvg(String content) {
+        try {
+            // Size 0 gives one matrix cell per module
+            BitMatrix bitMatrix = encode(content, 0);
+            int width = bitMatrix.getWidth();
+            int height = bitMatrix.getHeight();
 
-        } catch (WriterException | IOException e) {
-            log.error("Error generating QR code for order {}: {}", orderId, e.getMessage());
+            StringBuilder path = new StringBuilder();
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if (bitMatrix.get(x, y)) {
+                        path.append('M').append(x).append(',').append(y).append("h1v1h-1z");
+                    }
+                }
+            }
+
+            String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 " + width + " " + height
+                    + "\" shape-rendering=\"crispEdges\"><rect width=\"100%\" height=\"100%\" fill=\"#fff\"/>"
+                    + "<path fill=\"#000\" d=\"" + path + "\"/></svg>";
+            return svg.getBytes(StandardCharsets.UTF_8);
+        } catch (WriterException e) {
+            log.error("Error generating QR code for {}: {}", content, e.getMessage());
             throw new RuntimeException("Failed to generate QR code", e);
         }
     }
+
+    private BitMatrix encode(String content, int size) throws WriterException {
+        // Configure QR code generation hints
+        Map<EncodeHintType, Object> hints = new HashMap<>();
+        hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.H); // High error correction
+        hints.put(EncodeHintType.MARGIN, 1); // Minimal margin
+
+        return new QRCodeWriter().encode(content, BarcodeFormat.QR_CODE, size, size, hints);
+    }
 }
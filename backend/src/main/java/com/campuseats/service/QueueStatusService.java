@@ -0,0 +1,282 @@
+package com.campuseats.service;
+
+import com.campuseats.dto.CanteenOrderCount;
+import com.campuseats.dto.CanteenQueueStatusDTO;
+import com.campuseats.model.Canteen;
+import com.campuseats.model.Order;
+import com.campuseats.repository.CanteenRepository;
+import com.campuseats.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Queue status of every active canteen, kept as per-canteen counters of paid
+ * PENDING and PREPARING orders by status and order type. OrderService moves
+ * an order between counters on payment success and on status transitions,
+ * so reads never query orders. The endpoint is served from an immutable
+ * snapshot rebuilt at most once per snapshot TTL, and a periodic
+ * reconciliation recomputes the counters with a single aggregation.
+ */
+@Service
+@Slf4j
+public class QueueStatusService {
+
+    private static final Order.OrderStatus[] QUEUED_STATUSES = {
+            Order.OrderStatus.PENDING,
+            Order.OrderStatus.PREPARING
+    };
+    private static final Order.OrderType[] ORDER_TYPES = Order.OrderType.values();
+    private static final String SUCCESSFUL_PAYMENT_STATUS = "succeeded";
+
+    private final CanteenRepository canteenRepository;
+    private final OrderRepository orderRepository;
+    private final PrepTimeEstimator prepTimeEstimator;
+    private final long snapshotTtlNanos;
+    private final Counter driftCounter;
+
+    // canteenId -> count per (queued status, order type), see slot()
+    private final Map<String, AtomicIntegerArray> counters = new ConcurrentHashMap<>();
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile Snapshot snapshot = new Snapshot(List.of(), Long.MIN_VALUE);
+    private volatile List<Canteen> activeCanteens;
+
+    public QueueStatusService(CanteenRepository canteenRepository,
+            OrderRepository orderRepository,
+            PrepTimeEstimator prepTimeEstimator,
+            MeterRegistry meterRegistry,
+            @Value("${queue-status.snapshot-ttl-ms:1000}") long snapshotTtlMs) {
+        this.canteenRepository = canteenRepository;
+        this.orderRepository = orderRepository;
+        this.prepTimeEstimator = prepTimeEstimator;
+        this.snapshotTtlNanos = TimeUnit.MILLISECONDS.toNanos(snapshotTtlMs);
+        this.driftCounter = Counter.builder("queue.status.drift")
+                .description("Queue counters corrected by reconciliation")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.warn("Could not load queue counters: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Moves a paid order from one queued status to another. Pass null for a
+     * side that is not counted: an unpaid order, or one that has left the
+     * queue (READY, COMPLETED).
+     */
+    public void recordTransition(Order order, Order.OrderStatus from, Order.OrderStatus to) {
+        int fromStatus = statusIndex(from);
+        int toStatus = statusIndex(to);
+        if (fromStatus == toStatus) {
+            return;
+        }
+        int type = typeOf(order).ordinal();
+        for (String canteenId : order.getCanteenIds()) {
+            AtomicIntegerArray counts = counters.computeIfAbsent(canteenId, k -> newCounts());
+            if (fromStatus >= 0) {
+                counts.decrementAndGet(slot(fromStatus, type));
+            }
+            if (toStatus >= 0) {
+                counts.incrementAndGet(slot(toStatus, type));
+            }
+        }
+    }
+
+    /**
+     * Paid orders of a canteen waiting to be prepared or being prepared.
+     */
+    public int queuedCount(String canteenId) {
+        AtomicIntegerArray counts = counters.get(canteenId);
+        int total = 0;
+        for (int i = 0; counts != null && i < counts.length(); i++) {
+            total += Math.max(0, counts.get(i));
+        }
+        return total;
+    }
+
+    /**
+     * Makes the next snapshot reload canteen names and active flags.
+     */
+    public void onCanteenChanged() {
+        activeCanteens = null;
+        snapshot = new Snapshot(snapshot.statuses, Long.MIN_VALUE);
+    }
+
+    public List<CanteenQueueStatusDTO> getQueueStatus() {
+        Snapshot current = snapshot;
+        if (isFresh(current)) {
+            return current.statuses;
+        }
+        // One caller rebuilds; the rest keep serving the previous snapshot meanwhile
+        if (!refreshLock.tryLock()) {
+            return current.statuses;
+        }
+        try {
+            current = snapshot;
+            if (!isFresh(current)) {
+                current = new Snapshot(buildStatuses(), System.nanoTime());
+                snapshot = current;
+            }
+            return current.statuses;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Recomputes every counter from Mongo. A transition recorded while the
+     * aggregation runs may be overwritten; the next run corrects it.
+     */
+    @Scheduled(fixedDelayString = "${queue-status.reconcile-ms:30000}",
+            initialDelayString = "${queue-status.reconcile-ms:30000}")
+    public void reconcile() {
+        List<Canteen> canteens = loadActiveCanteens();
+        List<String> canteenIds = canteens.stream().map(Canteen::getId).collect(Collectors.toList());
+        List<String> statuses = new ArrayList<>();
+        for (Order.OrderStatus status : QUEUED_STATUSES) {
+            statuses.add(status.name());
+        }
+
+        Map<String, int[]> expected = new HashMap<>();
+        for (CanteenOrderCount count : orderRepository.countByCanteenStatusAndOrderType(
+                canteenIds, statuses, SUCCESSFUL_PAYMENT_STATUS)) {
+            int status = statusIndex(Order.OrderStatus.valueOf(count.getOrderStatus()));
+            Order.OrderType type = count.getOrderType() != null
+                    ? Order.OrderType.valueOf(count.getOrderType())
+                    : Order.OrderType.LATER;
+            expected.computeIfAbsent(count.getCanteenId(), k -> new int[QUEUED_STATUSES.length * ORDER_TYPES.length])
+                    [slot(status, type.ordinal())] += (int) count.getCount();
+        }
+
+        int drift = 0;
+        for (String canteenId : canteenIds) {
+            int[] values = expected.get(canteenId);
+            AtomicIntegerArray counts = counters.computeIfAbsent(canteenId, k -> newCounts());
+            for (int i = 0; i < counts.length(); i++) {
+                int value = values != null ? values[i] : 0;
+                int previous = counts.getAndSet(i, value);
+                drift += Math.abs(previous - value);
+            }
+        }
+        counters.keySet().retainAll(canteenIds);
+
+        if (drift > 0) {
+            driftCounter.increment(drift);
+            log.info("Queue counters reconciled: {} orders corrected", drift);
+        }
+    }
+
+    private boolean isFresh(Snapshot current) {
+        return current.builtAt != Long.MIN_VALUE && System.nanoTime() - current.builtAt < snapshotTtlNanos;
+    }
+
+    private List<CanteenQueueStatusDTO> buildStatuses() {
+        List<Canteen> canteens = activeCanteens;
+        if (canteens == null) {
+            canteens = loadActiveCanteens();
+        }
+
+        List<CanteenQueueStatusDTO> statuses = new ArrayList<>(canteens.size());
+        for (Canteen canteen : canteens) {
+            AtomicIntegerArray counts = counters.get(canteen.getId());
+            Map<Order.OrderType, Integer> ordersByType = new EnumMap<>(Order.OrderType.class);
+            Map<Order.OrderStatus, Integer> ordersByStatus = new EnumMap<>(Order.OrderStatus.class);
+            int pendingCount = 0;
+            for (int status = 0; status < QUEUED_STATUSES.length; status++) {
+                for (Order.OrderType type : ORDER_TYPES) {
+                    // Concurrent transitions can briefly leave a slot below zero
+                    int count = counts != null ? Math.max(0, counts.get(slot(status, type.ordinal()))) : 0;
+                    ordersByType.merge(type, count, Integer::sum);
+                    ordersByStatus.merge(QUEUED_STATUSES[status], count, Integer::sum);
+                    pendingCount += count;
+                }
+            }
+
+            PrepTimeEstimator.Estimate estimate = prepTimeEstimator.estimate(canteen.getId());
+            statuses.add(new CanteenQueueStatusDTO(
+                    canteen.getId(),
+                    canteen.getCanteenName(),
+                    queueLevel(pendingCount),
+                    pendingCount,
+                    Collections.unmodifiableMap(ordersByType),
+                    Collections.unmodifiableMap(ordersByStatus),
+                    estimate.waitMinutes(pendingCount),
+                    estimate.maxWaitMinutes(pendingCount)));
+        }
+        return Collections.unmodifiableList(statuses);
+    }
+
+    private List<Canteen> loadActiveCanteens() {
+        List<Canteen> canteens = canteenRepository.findAll().stream()
+                .filter(Canteen::isActive)
+                .collect(Collectors.toList());
+        prepTimeEstimator.setConfiguredTimes(canteens);
+        activeCanteens = canteens;
+        return canteens;
+    }
+
+    private static String queueLevel(int pendingCount) {
+        if (pendingCount >= 5) {
+            return "HIGH";
+        } else if (pendingCount >= 3) {
+            return "MEDIUM";
+        } else if (pendingCount >= 1) {
+            return "LOW";
+        }
+        return "NONE";
+    }
+
+    private static int statusIndex(Order.OrderStatus status) {
+        for (int i = 0; i < QUEUED_STATUSES.length; i++) {
+            if (QUEUED_STATUSES[i] == status) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Order.OrderType typeOf(Order order) {
+        return order.getOrderType() != null ? order.getOrderType() : Order.OrderType.LATER;
+    }
+
+    private static int slot(int status, int type) {
+        return status * ORDER_TYPES.length + type;
+    }
+
+    private static AtomicIntegerArray newCounts() {
+        return new AtomicIntegerArray(QUEUED_STATUSES.length * ORDER_TYPES.length);
+    }
+
+    private static final class Snapshot {
+        private final List<CanteenQueueStatusDTO> statuses;
+        private final long builtAt;
+
+        private Snapshot(List<CanteenQueueStatusDTO> statuses, long builtAt) {
+            this.statuses = statuses;
+            this.builtAt = builtAt;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.campuseats.service;
+
+import com.campuseats.model.Order;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds paid LATER orders back from the kitchen board until their pickup
+ * time minus the canteen's current preparation estimate. Held orders wait
+ * in a timing wheel; OrderService advances it every tick and pushes each
+ * released order to the canteen's stream.
+ */
+@Component
+@Slf4j
+public class ScheduledOrderReleaser {
+
+    private final MongoTemplate mongoTemplate;
+    private final PrepTimeEstimator prepTimeEstimator;
+    private final TimingWheel<String> wheel;
+
+    // orderId -> order as tracked and when it is released to the board
+    private final Map<String, Held> held = new ConcurrentHashMap<>();
+
+    public ScheduledOrderReleaser(MongoTemplate mongoTemplate,
+            PrepTimeEstimator prepTimeEstimator,
+            @Value("${orders.release.tick-ms:1000}") long tickMs,
+            @Value("${orders.release.wheel-size:64}") int wheelSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.prepTimeEstimator = prepTimeEstimator;
+        this.wheel = new TimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            Query query = Query.query(Criteria.where("pickupAt").gt(LocalDateTime.now())
+                    .and("orderType").is(Order.OrderType.LATER)
+                    .and("orderStatus").is(Order.OrderStatus.PENDING)
+                    .and("paymentStatus").is("succeeded"));
+            query.fields().exclude("statusHistory");
+            List<Order> orders = mongoTemplate.find(query, Order.class);
+            orders.forEach(this::track);
+            log.info("Holding {} scheduled orders until their release time", held.size());
+        } catch (Exception e) {
+            log.warn("Could not load scheduled orders: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Starts holding a paid, pending LATER order whose release time is still
+     * ahead, and stops holding an order that no longer qualifies (e.g. the
+     * kitchen started it early). An order keeps the release time it was
+     * first given.
+     */
+    public void track(Order order) {
+        if (order.getOrderType() == Order.OrderType.LATER
+                && order.getOrderStatus() == Order.OrderStatus.PENDING
+                && "succeeded".equals(order.getPaymentStatus())
+                && order.getPickupAt() != null
+                && !order.getCanteenIds().isEmpty()) {
+            double prepMinutes = prepTimeEstimator.estimate(order.getCanteenIds().get(0)).getPrepMinutes();
+            LocalDateTime releaseAt = order.getPickupAt().minusSeconds((long) (prepMinutes * 60));
+            if (releaseAt.isAfter(LocalDateTime.now())
+                    && held.putIfAbsent(order.getId(), new Held(order, releaseAt)) == null
+                    && !wheel.schedule(order.getId(), toEpochMs(releaseAt))) {
+                held.remove(order.getId());
+            }
+            return;
+        }
+        held.remove(order.getId());
+    }
+
+    /**
+     * When the order will appear on the kitchen board, or null if it is not
+     * being held.
+     */
+    public LocalDateTime getReleaseAt(String orderId) {
+        Held entry = held.get(orderId);
+        return entry != null ? entry.releaseAt : null;
+    }
+
+    /**
+     * Advances the wheel to now.
+     *
+     * @return the orders released by this call, as they were when tracked
+     */
+    public List<Order> releaseDue() {
+        List<Order> released = new ArrayList<>();
+        for (String orderId : wheel.advance(System.currentTimeMillis())) {
+            // Orders dropped from the hold meanwhile were already shown or have moved on
+            Held entry = held.remove(orderId);
+            if (entry != null) {
+                released.add(entry.order);
+            }
+        }
+        return released;
+    }
+
+    private static long toEpochMs(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static final class Held {
+        private final Order order;
+        private final LocalDateTime releaseAt;
+
+        private Held(Order order, LocalDateTime releaseAt) {
+            this.order = order;
+            this.releaseAt = releaseAt;
+        }
+    }
+}
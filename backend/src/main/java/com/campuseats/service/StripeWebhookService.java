@@ -0,0 +1,107 @@
+package com.campuseats.service;
+
+import com.campuseats.model.StripeWebhookEvent;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.model.Event;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.StripeObject;
+import com.stripe.net.Webhook;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.Instant;
+
+/**
+ * Applies signed Stripe webhook events for payment intents. An event id is
+ * stored once the event has been applied, so redeliveries are skipped; an
+ * event that fails is left unrecorded and Stripe delivers it again.
+ */
+@Service
+@Slf4j
+public class StripeWebhookService {
+
+    private static final String PAYMENT_INTENT_PREFIX = "payment_intent.";
+
+    private final PaymentService paymentService;
+    private final MongoTemplate mongoTemplate;
+    private final String webhookSecret;
+
+    public StripeWebhookService(PaymentService paymentService,
+            MongoTemplate mongoTemplate,
+            @Value("${stripe.webhook.secret:}") String webhookSecret) {
+        this.paymentService = paymentService;
+        this.mongoTemplate = mongoTemplate;
+        this.webhookSecret = webhookSecret;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!StringUtils.hasText(webhookSecret)) {
+            log.warn("stripe.webhook.secret is not set; payments settle through background sync only");
+        }
+        try {
+            IndexOperations indexOps = mongoTemplate.indexOps(StripeWebhookEvent.class);
+            new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                    .resolveIndexFor(StripeWebhookEvent.class)
+                    .forEach(indexOps::ensureIndex);
+        } catch (Exception e) {
+            log.warn("Could not ensure webhook event indexes: {}", e.getMessage());
+        }
+    }
+
+    public boolean isConfigured() {
+        return StringUtils.hasText(webhookSecret);
+    }
+
+    /**
+     * Verifies and applies one delivery.
+     *
+     * @throws SignatureVerificationException if the payload was not signed
+     *         with the endpoint's secret
+     */
+    public void handle(String payload, String signature) throws SignatureVerificationException {
+        Event event = Webhook.constructEvent(payload, signature, webhookSecret);
+        if (!event.getType().startsWith(PAYMENT_INTENT_PREFIX)) {
+            return;
+        }
+        if (mongoTemplate.exists(Query.query(Criteria.where("_id").is(event.getId())), StripeWebhookEvent.class)) {
+            log.debug("Skipping redelivered Stripe event {}", event.getId());
+            return;
+        }
+
+        StripeObject object = event.getDataObjectDeserializer().getObject()
+                .orElseGet(() -> deserializeUnsafe(event));
+        if (object instanceof PaymentIntent paymentIntent) {
+            boolean applied = paymentService.applyIntentStatus(paymentIntent.getId(), paymentIntent.getStatus(),
+                    paymentIntent.getLastPaymentError() != null, Instant.ofEpochSecond(event.getCreated()));
+            if (!applied) {
+                log.debug("Stripe event {} for {} was stale or unknown", event.getId(), paymentIntent.getId());
+            }
+        }
+
+        try {
+            mongoTemplate.insert(new StripeWebhookEvent(event.getId(), event.getType(), Instant.now()));
+        } catch (DuplicateKeyException e) {
+            // Delivered twice concurrently; applying a status is idempotent
+        }
+    }
+
+    // Events rendered for a different API version than the library's
+    private static StripeObject deserializeUnsafe(Event event) {
+        try {
+            return event.getDataObjectDeserializer().deserializeUnsafe();
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not read Stripe event " + event.getId(), e);
+        }
+    }
+}
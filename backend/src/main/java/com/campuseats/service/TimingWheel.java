@@ -0,0 +1,115 @@
+package com.campuseats.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel. Level 0 has one slot per tick; each further
+ * level has slots as wide as the whole level below it, and levels are added
+ * as far-off deadlines require. Scheduling is constant time, and advancing
+ * touches one slot per level per tick, however many items are waiting.
+ * Items are not cancelled; callers ignore items that no longer apply.
+ */
+public class TimingWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final List<Level<T>> levels = new ArrayList<>();
+    private long currentTime;
+
+    public TimingWheel(long tickMs, int wheelSize, long startMs) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.currentTime = startMs - (startMs % tickMs);
+        levels.add(new Level<>(tickMs, wheelSize));
+    }
+
+    /**
+     * Schedules the item for {@code dueMs}.
+     *
+     * @return false if the deadline has already passed, in which case the
+     *         item is not stored and the caller should act on it now
+     */
+    public synchronized boolean schedule(T item, long dueMs) {
+        return add(new Entry<>(item, dueMs));
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowMs}.
+     *
+     * @return the items whose deadline has been reached, in deadline order per tick
+     */
+    public synchronized List<T> advance(long nowMs) {
+        List<T> due = new ArrayList<>();
+        // A tick is processed once it has fully elapsed, so nothing is released early
+        while (currentTime + tickMs <= nowMs) {
+            // Higher levels first: their entries cascade into the slots about to be drained
+            for (int i = levels.size() - 1; i >= 1; i--) {
+                Level<T> level = levels.get(i);
+                if (currentTime % level.tickMs == 0) {
+                    ArrayDeque<Entry<T>> slot = level.slot(currentTime);
+                    Entry<T> entry;
+                    while ((entry = slot.poll()) != null) {
+                        if (!add(entry)) {
+                            due.add(entry.item);
+                        }
+                    }
+                }
+            }
+            ArrayDeque<Entry<T>> slot = levels.get(0).slot(currentTime);
+            Entry<T> entry;
+            while ((entry = slot.poll()) != null) {
+                due.add(entry.item);
+            }
+            currentTime += tickMs;
+        }
+        return due;
+    }
+
+    private boolean add(Entry<T> entry) {
+        if (entry.dueMs < currentTime) {
+            return false;
+        }
+        for (int i = 0; ; i++) {
+            if (i == levels.size()) {
+                Level<T> top = levels.get(i - 1);
+                levels.add(new Level<>(top.tickMs * wheelSize, wheelSize));
+            }
+            Level<T> level = levels.get(i);
+            long levelTime = currentTime - (currentTime % level.tickMs);
+            if (entry.dueMs < levelTime + level.tickMs * wheelSize) {
+                level.slot(entry.dueMs).add(entry);
+                return true;
+            }
+        }
+    }
+
+    private static final class Level<T> {
+        private final long tickMs;
+        private final ArrayDeque<Entry<T>>[] slots;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Level(long tickMs, int wheelSize) {
+            this.tickMs = tickMs;
+            this.slots = new ArrayDeque[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                slots[i] = new ArrayDeque<>();
+            }
+        }
+
+        private ArrayDeque<Entry<T>> slot(long timeMs) {
+            return slots[(int) ((timeMs / tickMs) % slots.length)];
+        }
+    }
+
+    private static final class Entry<T> {
+        private final T item;
+        private final long dueMs;
+
+        private Entry(T item, long dueMs) {
+            this.item = item;
+            this.dueMs = dueMs;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.campuseats.service;
+
+import com.campuseats.model.RevokedToken;
+import com.campuseats.repository.RevokedTokenRepository;
+import com.campuseats.security.BloomFilter;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Revokes JWTs before they expire. Revocations are persisted in
+ * revoked_tokens and mirrored into an in-memory Bloom filter, so the
+ * authentication filter only reads storage when the filter reports a
+ * possible match; every other request stays a pure in-memory check.
+ * Other nodes pick up new revocations on the next incremental sync.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService {
+
+    private static final String SUBJECT_PREFIX = "sub:";
+    private static final String TOKEN_PREFIX = "jti:";
+
+    // Overlap between syncs so entries written with a slightly skewed clock are not missed
+    private static final long SYNC_OVERLAP_MS = 5000;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${jwt.expiration}")
+    private long jwtExpirationMs;
+
+    @Value("${security.revocation.bloom.expected-insertions:10000}")
+    private int expectedInsertions;
+
+    @Value("${security.revocation.bloom.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    // Starts empty so revocations made before the first load still register locally
+    private volatile BloomFilter filter;
+    private volatile Instant lastSync = Instant.EPOCH;
+    private volatile boolean loaded;
+
+    private final Counter storageChecks;
+    private final Counter rejections;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+            MongoTemplate mongoTemplate,
+            MeterRegistry meterRegistry) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.filter = new BloomFilter(1024, 0.01);
+        this.storageChecks = Counter.builder("security.revocation.storage.checks")
+                .description("Revocation lookups that reached storage after a Bloom filter hit")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("security.revocation.rejected")
+                .description("Requests carrying a revoked token")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            IndexOperations indexOps = mongoTemplate.indexOps(RevokedToken.class);
+            new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                    .resolveIndexFor(RevokedToken.class)
+                    .forEach(indexOps::ensureIndex);
+            rebuild();
+        } catch (Exception e) {
+            log.warn("Could not load token revocations: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Revokes every token issued to the subject up to now.
+     */
+    public void revokeSubject(String subject) {
+        revoke(SUBJECT_PREFIX + subject, Instant.now().plusMillis(jwtExpirationMs));
+    }
+
+    /**
+     * Lifts a subject revocation, e.g. when a rejected owner is approved.
+     * The Bloom filter keeps the key until the next rebuild, which only
+     * costs that subject a storage lookup per request until then.
+     */
+    public void clearSubject(String subject) {
+        revokedTokenRepository.deleteById(SUBJECT_PREFIX + subject);
+    }
+
+    /**
+     * Revokes a single token until its own expiry.
+     */
+    public void revokeToken(String tokenId, Instant tokenExpiresAt) {
+        revoke(TOKEN_PREFIX + tokenId, tokenExpiresAt);
+    }
+
+    public boolean isRevoked(Claims claims) {
+        BloomFilter current = filter;
+        List<String> candidates = new ArrayList<>(2);
+        String subjectKey = SUBJECT_PREFIX + claims.getSubject();
+        if (current.mightContain(subjectKey)) {
+            candidates.add(subjectKey);
+        }
+        if (claims.getId() != null && current.mightContain(TOKEN_PREFIX + claims.getId())) {
+            candidates.add(TOKEN_PREFIX + claims.getId());
+        }
+        if (candidates.isEmpty()) {
+            return false;
+        }
+
+        storageChecks.increment();
+        Map<String, RevokedToken> entries = revokedTokenRepository.findAllById(candidates).stream()
+                .collect(Collectors.toMap(RevokedToken::getId, Function.identity()));
+
+        boolean revoked = entries.containsKey(TOKEN_PREFIX + claims.getId());
+        RevokedToken subjectEntry = entries.get(subjectKey);
+        if (subjectEntry != null && claims.getIssuedAt() != null) {
+            // iat has second precision, so a token issued in the revocation's own second counts as revoked
+            revoked |= claims.getIssuedAt().toInstant().isBefore(subjectEntry.getRevokedAt());
+        }
+        if (revoked) {
+            rejections.increment();
+        }
+        return revoked;
+    }
+
+    /**
+     * Adds revocations written since the last sync, including those made on
+     * other nodes.
+     */
+    @Scheduled(fixedDelayString = "${security.revocation.sync-interval-ms:30000}",
+            initialDelayString = "${security.revocation.sync-interval-ms:30000}")
+    public void sync() {
+        if (!loaded) {
+            // Storage was unreachable at startup; keep trying for a full load
+            rebuild();
+            return;
+        }
+        BloomFilter current = filter;
+        try {
+            Instant started = Instant.now();
+            List<RevokedToken> added = revokedTokenRepository
+                    .findByRevokedAtGreaterThanEqual(lastSync.minusMillis(SYNC_OVERLAP_MS));
+            added.forEach(entry -> current.add(entry.getId()));
+            lastSync = started;
+        } catch (Exception e) {
+            log.warn("Token revocation sync failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuilds the filter from scratch so expired and lifted revocations
+     * stop producing storage lookups.
+     */
+    @Scheduled(fixedDelayString = "${security.revocation.rebuild-interval-ms:3600000}",
+            initialDelayString = "${security.revocation.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        try {
+            Instant started = Instant.now();
+            List<RevokedToken> all = revokedTokenRepository.findAll();
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedInsertions, all.size() * 2), falsePositiveRate);
+            all.forEach(entry -> rebuilt.add(entry.getId()));
+            filter = rebuilt;
+            lastSync = started;
+            loaded = true;
+            log.info("Loaded {} token revocations", all.size());
+        } catch (Exception e) {
+            log.warn("Token revocation rebuild failed: {}", e.getMessage());
+        }
+    }
+
+    private void revoke(String key, Instant expiresAt) {
+        revokedTokenRepository.save(new RevokedToken(key, Instant.now(), expiresAt));
+        filter.add(key);
+    }
+}
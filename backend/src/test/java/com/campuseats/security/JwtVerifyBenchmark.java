@@ -0,0 +1,101 @@
+package com.campuseats.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Microbenchmark for JWT verification on the request path. Compares the
+ * previous filter path, which derived the key and built a parser twice per
+ * request (validateToken, then getUsernameFromToken), with
+ * {@link JwtTokenProvider#verifyToken} cold (cache disabled) and warm
+ * (repeated token, cache hit).
+ *
+ * Not a JUnit test; run it by hand after {@code mvn test-compile}:
+ *
+ * <pre>
+ * mvn -q dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     com.campuseats.security.JwtVerifyBenchmark [iterations]
+ * </pre>
+ */
+public class JwtVerifyBenchmark {
+
+    private static final String SECRET = "your-secret-key-change-this-in-production-make-it-at-least-256-bits";
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        String token = Jwts.builder()
+                .setSubject("student@campus.edu")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 86_400_000L))
+                .claim("uid", "64f0c0ffee0000000000beef")
+                .claim("typ", "USER")
+                .claim("roles", List.of("ROLE_USER"))
+                .claim("ver", 0)
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+
+        JwtTokenProvider uncached = provider(0);
+        JwtTokenProvider cached = provider(5000);
+
+        // Warm up all three paths before measuring
+        for (int round = 0; round < 2; round++) {
+            report(round == 1, "double parse (old)", iterations, () -> doubleParse(token));
+            report(round == 1, "verifyToken, cache miss", iterations, () -> uncached.verifyToken(token));
+            report(round == 1, "verifyToken, cache hit", iterations, () -> cached.verifyToken(token));
+        }
+    }
+
+    /** The pre-cache filter path: a fresh key and parser for each of two parses. */
+    private static Object doubleParse(String token) {
+        Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(token);
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+        return claims.getSubject();
+    }
+
+    private static JwtTokenProvider provider(int cacheSize) {
+        JwtTokenProvider provider = new JwtTokenProvider(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(provider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(provider, "jwtExpirationMs", 86_400_000L);
+        ReflectionTestUtils.setField(provider, "verifiedCacheMaxSize", cacheSize);
+        provider.init();
+        return provider;
+    }
+
+    private static void report(boolean print, String name, int iterations, Step step) {
+        Object sink = null;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink = step.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == null) {
+            throw new IllegalStateException(name + " did not verify the token");
+        }
+        if (print) {
+            System.out.printf("%-26s %10.2f us/op%n", name, elapsed / 1000.0 / iterations);
+        }
+    }
+
+    private interface Step {
+        Object run();
+    }
+}
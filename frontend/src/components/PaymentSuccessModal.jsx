@@ -66,7 +66,7 @@ function PaymentSuccessModal({ onClose, orders = [] }) {
                                 </div>
 
                                 {/* QR Code section */}
-                                {orders.length > 0 && orders[0].qrCodeBase64 && (
+                                {orders.length > 0 && (
                                     <div className="mb-6 bg-white/[0.04] border border-orange-500/20 rounded-2xl p-5">
                                         {/* Screenshot reminder */}
                                         <div className="mb-5 text-center">
@@ -79,7 +79,6 @@ function PaymentSuccessModal({ onClose, orders = [] }) {
 
                                         {orders.length === 1 ? (
                                             <QRCodeDisplay
-                                                qrCodeBase64={orders[0].qrCodeBase64}
                                                 orderId={orders[0].id}
                                                 size={220}
                                             />
@@ -91,7 +90,6 @@ function PaymentSuccessModal({ onClose, orders = [] }) {
                                                 </div>
 
                                                 <QRCodeDisplay
-                                                    qrCodeBase64={orders[currentQRIndex].qrCodeBase64}
                                                     orderId={orders[currentQRIndex].id}
                                                     size={220}
                                                 />
@@ -161,7 +159,6 @@ PaymentSuccessModal.propTypes = {
     onClose: PropTypes.func.isRequired,
     orders: PropTypes.arrayOf(PropTypes.shape({
         id: PropTypes.string.isRequired,
-        qrCodeBase64: PropTypes.string,
         orderItems: PropTypes.array
     }))
 };
@@ -1,17 +1,38 @@
+import { useEffect, useState } from 'react';
 import PropTypes from 'prop-types';
+import orderService from '../services/orderService';
+
+function QRCodeDisplay({ orderId, size = 300 }) {
+    const [qrCodeUrl, setQrCodeUrl] = useState(null);
+
+    // The image is rendered by the server on request and cached by the browser
+    useEffect(() => {
+        let objectUrl;
+        let cancelled = false;
+        orderService.getOrderQrCode(orderId)
+            .then(blob => {
+                if (cancelled) return;
+                objectUrl = URL.createObjectURL(blob);
+                setQrCodeUrl(objectUrl);
+            })
+            .catch(err => console.error('Error loading QR code:', err));
+        return () => {
+            cancelled = true;
+            if (objectUrl) URL.revokeObjectURL(objectUrl);
+        };
+    }, [orderId]);
 
-function QRCodeDisplay({ qrCodeBase64, orderId, size = 300 }) {
     const handleDownload = () => {
         // Create a link element to download the QR code
         const link = document.createElement('a');
-        link.href = qrCodeBase64;
+        link.href = qrCodeUrl;
         link.download = `order-${orderId}-qr.png`;
         document.body.appendChild(link);
         link.click();
         document.body.removeChild(link);
     };
 
-    if (!qrCodeBase64) {
+    if (!qrCodeUrl) {
         return null;
     }
 
@@ -22,7 +43,7 @@ function QRCodeDisplay({ qrCodeBase64, orderId, size = 300 }) {
                 <div className="absolute inset-0 bg-gradient-to-r from-orange-400 to-red-400 rounded-2xl blur-xl opacity-50 group-hover:opacity-75 transition"></div>
                 <div className="relative bg-white p-6 rounded-2xl shadow-2xl border-4 border-orange-100">
                     <img
-                        src={qrCodeBase64}
+                        src={qrCodeUrl}
                         alt={`QR Code for order ${orderId}`}
                         style={{ width: size, height: size }}
                         className="rounded-lg"
@@ -53,7 +74,6 @@ function QRCodeDisplay({ qrCodeBase64, orderId, size = 300 }) {
 }
 
 QRCodeDisplay.propTypes = {
-    qrCodeBase64: PropTypes.string.isRequired,
     orderId: PropTypes.string.isRequired,
     size: PropTypes.number
 };
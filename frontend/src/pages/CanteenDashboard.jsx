@@ -10,6 +10,7 @@ function CanteenDashboard() {
     const [canteenOwner, setCanteenOwner] = useState(null)
     const [canteen, setCanteen] = useState(null)
     const [orders, setOrders] = useState([])
+    const [orderStats, setOrderStats] = useState(null)
     const [menuItems, setMenuItems] = useState([])
     const [loading, setLoading] = useState(true)
     const navigate = useNavigate()
@@ -26,14 +27,16 @@ function CanteenDashboard() {
         const fetchData = async () => {
             try {
                 if (owner.canteenId) {
-                    const [canteenData, ordersData, menuData] = await Promise.all([
+                    const [canteenData, ordersPage, statsData, menuData] = await Promise.all([
                         canteenService.getCanteenById(owner.canteenId).catch(() => null),
-                        orderService.getCanteenOrders(owner.canteenId).catch(() => []),
+                        orderService.getCanteenOrdersPage(owner.canteenId).catch(() => null),
+                        orderService.getCanteenOrderStats(owner.canteenId).catch(() => null),
                         menuItemService.getMenuItems(owner.canteenId).catch(() => [])
                     ])
 
                     setCanteen(canteenData)
-                    setOrders(ordersData || [])
+                    setOrders(ordersPage?.items || [])
+                    setOrderStats(statsData)
                     setMenuItems(menuData || [])
                 }
             } catch (err) {
@@ -64,16 +67,9 @@ function CanteenDashboard() {
         }
     };
 
-    // Derived Statistics
-    const successfulOrders = orders.filter(o => o.paymentStatus === 'succeeded') || [];
-    const totalOrdersCount = successfulOrders.length;
-
-    // Calculate Today's Revenue
-    const today = new Date();
-    const todayStart = new Date(today.getFullYear(), today.getMonth(), today.getDate()).getTime();
-    const todayRevenue = successfulOrders
-        .filter(o => new Date(o.createdAt).getTime() >= todayStart)
-        .reduce((sum, order) => sum + (order.totalAmount || 0), 0);
+    // Totals over the whole history, computed by the server
+    const totalOrdersCount = orderStats?.paidOrders || 0;
+    const todayRevenue = orderStats?.paidAmountToday || 0;
 
     // Recent Completed Orders
     const recentlyCompleted = orders
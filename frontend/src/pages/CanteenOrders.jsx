@@ -3,12 +3,16 @@ import { useNavigate, useLocation } from 'react-router-dom';
 import canteenService from '../services/canteenService';
 import canteenAuthService from '../services/canteenAuthService';
 import orderService from '../services/orderService';
+import orderStreamService from '../services/orderStreamService';
 import CanteenLayout from '../components/CanteenLayout';
 
 function CanteenOrders() {
     const navigate = useNavigate();
     const location = useLocation();
     const [orders, setOrders] = useState([]);
+    // Older orders are fetched a page at a time; null once the whole history is shown
+    const [nextCursor, setNextCursor] = useState(null);
+    const [loadingMore, setLoadingMore] = useState(false);
     const [loading, setLoading] = useState(true);
     const [canteenOwner, setCanteenOwner] = useState(null);
     const [lastUpdated, setLastUpdated] = useState(new Date());
@@ -32,18 +36,21 @@ function CanteenOrders() {
                 }
 
                 if (owner.canteenId) {
-                    const data = await orderService.getCanteenOrders(owner.canteenId);
+                    const page = await orderService.getCanteenOrdersPage(owner.canteenId);
 
                     // Check for new orders
-                    if (orders.length > 0 && data.length > orders.length) {
-                        const newCount = data.length - orders.length;
-                        setNewOrdersCount(newCount);
+                    setOrders(prev => {
+                        const known = new Set(prev.map(o => o.id));
+                        const newCount = page.items.filter(o => !known.has(o.id)).length;
+                        if (prev.length > 0 && newCount > 0) {
+                            setNewOrdersCount(newCount);
 
-                        // Clear notification after 5 seconds
-                        setTimeout(() => setNewOrdersCount(0), 5000);
-                    }
-
-                    setOrders(data);
+                            // Clear notification after 5 seconds
+                            setTimeout(() => setNewOrdersCount(0), 5000);
+                        }
+                        return page.items;
+                    });
+                    setNextCursor(page.nextCursor);
                     setLastUpdated(new Date());
                 }
             } catch (error) {
@@ -57,21 +64,41 @@ function CanteenOrders() {
         // Initial fetch
         fetchOrders();
 
-        // Set up polling every 30 seconds
+        // Fallback polling every 60 seconds; changes normally arrive over the order stream
         const pollInterval = setInterval(() => {
             fetchOrders(false);
-        }, 30000);
+        }, 60000);
 
         // Cleanup interval on unmount
         return () => clearInterval(pollInterval);
-    }, [navigate, orders.length]);
+    }, [navigate]);
+
+    // Live updates over SSE; the slow poll above only backs this up
+    useEffect(() => {
+        const owner = canteenAuthService.getCurrentCanteenOwner();
+        if (!owner?.canteenId) return;
+
+        return orderStreamService.subscribeToCanteenOrders(owner.canteenId, {
+            onOrder: (updated) => {
+                setOrders(prev => orderStreamService.upsertOrder(prev, updated));
+                setLastUpdated(new Date());
+            },
+            onResync: async () => {
+                const page = await orderService.getCanteenOrdersPage(owner.canteenId);
+                setOrders(page.items);
+                setNextCursor(page.nextCursor);
+                setLastUpdated(new Date());
+            }
+        });
+    }, []);
 
     const handleManualRefresh = async () => {
         setIsRefreshing(true);
         try {
             if (canteenOwner?.canteenId) {
-                const data = await orderService.getCanteenOrders(canteenOwner.canteenId);
-                setOrders(data);
+                const page = await orderService.getCanteenOrdersPage(canteenOwner.canteenId);
+                setOrders(page.items);
+                setNextCursor(page.nextCursor);
                 setLastUpdated(new Date());
             }
         } catch (error) {
@@ -81,6 +108,24 @@ function CanteenOrders() {
         }
     };
 
+    const handleLoadMore = async () => {
+        if (!nextCursor || !canteenOwner?.canteenId) return;
+        setLoadingMore(true);
+        try {
+            const page = await orderService.getCanteenOrdersPage(canteenOwner.canteenId, { cursor: nextCursor });
+            // Skip orders that already arrived over the stream
+            setOrders(prev => {
+                const known = new Set(prev.map(o => o.id));
+                return [...prev, ...page.items.filter(o => !known.has(o.id))];
+            });
+            setNextCursor(page.nextCursor);
+        } catch (error) {
+            console.error('Error loading more orders:', error);
+        } finally {
+            setLoadingMore(false);
+        }
+    };
+
     const getStatusStyles = (status) => {
         switch (status) {
             case 'pending': return { bg: 'rgba(234,179,8,0.1)', text: '#facc15', border: 'rgba(234,179,8,0.2)' };
@@ -292,6 +337,17 @@ function CanteenOrders() {
                             </div>
                         )
                     })}
+                    {nextCursor && (
+                        <div className="flex justify-center">
+                            <button
+                                onClick={handleLoadMore}
+                                disabled={loadingMore}
+                                className="px-6 py-2 rounded-lg border border-white/[0.08] bg-white/[0.04] text-gray-300 hover:bg-white/[0.08] transition disabled:opacity-50 disabled:cursor-not-allowed"
+                            >
+                                {loadingMore ? 'Loading...' : 'Load older orders'}
+                            </button>
+                        </div>
+                    )}
                 </div>
             )}
         </CanteenLayout>
@@ -1,4 +1,4 @@
-import { useState, useEffect } from 'react';
+import { useState, useEffect, useRef } from 'react';
 import { useNavigate, useLocation } from 'react-router-dom';
 import { useCart } from '../context/CartContext';
 import { loadStripe } from '@stripe/stripe-js';
@@ -12,7 +12,7 @@ import PaymentSuccessModal from '../components/PaymentSuccessModal';
 const stripePromise = loadStripe(import.meta.env.VITE_STRIPE_PUBLISHABLE_KEY);
 
 /* ─── Stripe Payment Sub-form ─── */
-function CheckoutForm({ orderIds, totalAmount, onSuccess }) {
+function CheckoutForm({ totalAmount, onSuccess }) {
     const stripe = useStripe();
     const elements = useElements();
     const [isProcessing, setIsProcessing] = useState(false);
@@ -35,7 +35,7 @@ function CheckoutForm({ orderIds, totalAmount, onSuccess }) {
                 setErrorMessage(error.message);
                 setIsProcessing(false);
             } else if (paymentIntent && paymentIntent.status === 'succeeded') {
-                await paymentService.confirmPayment(paymentIntent.id, orderIds);
+                await paymentService.waitForConfirmation(paymentIntent.id);
                 onSuccess();
             }
         } catch (err) {
@@ -107,6 +107,8 @@ function Checkout() {
     const [isCreatingOrder, setIsCreatingOrder] = useState(false);
     const [preservedCartItems, setPreservedCartItems] = useState(null);
     const [minOrderError, setMinOrderError] = useState('');
+    // Reused when an attempt is retried after a network failure
+    const checkoutKeyRef = useRef(null);
 
     const displayItems = cart?.items || preservedCartItems || [];
     const displayTotal = subtotal || (order ? (Array.isArray(order) ? order.reduce((s, o) => s + o.totalAmount, 0) : order.totalAmount) : 0);
@@ -175,13 +177,28 @@ function Checkout() {
                 ...formData,
                 pointsToRedeem: redeemEnabled ? pointsToRedeem : 0
             };
-            const createdOrders = await orderService.createOrder(orderData);
+            if (!checkoutKeyRef.current) checkoutKeyRef.current = crypto.randomUUID();
+            const session = await orderService.createOrder(orderData, checkoutKeyRef.current);
+            checkoutKeyRef.current = null;
+            const createdOrders = session.orders;
             setOrder(createdOrders);
-            const combinedTotal = createdOrders.reduce((sum, o) => sum + o.totalAmount, 0);
-            const paymentIntent = await paymentService.createPaymentIntent(createdOrders[0].id, combinedTotal);
+            const paymentIntent = await paymentService.createPaymentIntent(session.checkoutSessionId);
             setClientSecret(paymentIntent.clientSecret);
             setShowPayment(true);
         } catch (err) {
+            // The server answered, so the next attempt is a new request
+            if (err.response) checkoutKeyRef.current = null;
+            const data = err.response?.data;
+            if (err.response?.status === 409 && data?.error && formData.orderType === 'LATER') {
+                // Pickup slot is full; offer the next one with room
+                if (data.suggestedPickupTime) {
+                    setFormData(prev => ({ ...prev, pickupDate: data.suggestedPickupDate, pickupTime: data.suggestedPickupTime }));
+                    setErrors(prev => ({ ...prev, pickupTime: `${data.error}. Next available: ${data.suggestedPickupTime}` }));
+                } else {
+                    setErrors(prev => ({ ...prev, pickupTime: `${data.error}. No later slots are free that day` }));
+                }
+                return;
+            }
             alert(err.response?.data?.message || 'Failed to create order. Please try again.');
         } finally {
             setIsCreatingOrder(false);
@@ -568,7 +585,6 @@ function Checkout() {
                                 {clientSecret && (
                                     <Elements stripe={stripePromise} options={{ clientSecret, appearance }}>
                                         <CheckoutForm
-                                            orderIds={order.map(o => o.id)}
                                             totalAmount={order.reduce((sum, o) => sum + o.totalAmount, 0)}
                                             onSuccess={handlePaymentSuccess}
                                         />
@@ -24,16 +24,17 @@ function Dashboard() {
     const fetchOrders = async () => {
         try {
             setLoading(true)
-            const data = await orderService.getUserOrders()
-            // Sort by most recent first
-            const sortedOrders = data.sort((a, b) => new Date(b.createdAt) - new Date(a.createdAt))
-            setOrders(sortedOrders)
+            // Recent orders come from the first page; totals cover the whole history
+            const [page, orderStats] = await Promise.all([
+                orderService.getUserOrdersPage(),
+                orderService.getUserOrderStats()
+            ])
+            setOrders(page.items)
 
-            // Calculate stats
             setStats(prevStats => ({
                 ...prevStats,
-                total: data.length,
-                completed: data.filter(o => o.paymentStatus === 'succeeded').length
+                total: orderStats.totalOrders,
+                completed: orderStats.paidOrders
             }))
         } catch (err) {
             console.error('Error fetching orders:', err)
@@ -2,6 +2,7 @@ import { useState, useEffect } from 'react';
 import { useNavigate } from 'react-router-dom';
 import canteenAuthService from '../services/canteenAuthService';
 import orderService from '../services/orderService';
+import orderStreamService from '../services/orderStreamService';
 import CanteenLayout from '../components/CanteenLayout';
 
 function KitchenDashboard() {
@@ -30,7 +31,7 @@ function KitchenDashboard() {
                 }
 
                 if (owner.canteenId) {
-                    const data = await orderService.getCanteenOrders(owner.canteenId);
+                    const data = await orderService.getActiveCanteenOrders(owner.canteenId);
 
                     // Check for new orders
                     if (orders.length > 0 && data.length > orders.length) {
@@ -55,10 +56,10 @@ function KitchenDashboard() {
         // Initial fetch
         fetchOrders();
 
-        // Set up polling every 10 seconds
+        // Fallback polling every 60 seconds; changes normally arrive over the order stream
         const pollInterval = setInterval(() => {
             fetchOrders(false);
-        }, 10000);
+        }, 60000);
 
         // Cleanup interval on unmount
         return () => clearInterval(pollInterval);
@@ -66,8 +67,8 @@ function KitchenDashboard() {
 
     // Filter orders when activeFilter or orders change
     useEffect(() => {
-        // Only show orders with successful payment
-        const paidOrders = orders.filter(order => order.paymentStatus === 'succeeded');
+        // Only show paid orders; scheduled ones arrive over the stream once released (releaseAt cleared)
+        const paidOrders = orders.filter(order => order.paymentStatus === 'succeeded' && !order.releaseAt);
 
         if (activeFilter === 'ALL') {
             setFilteredOrders(paidOrders);
@@ -76,11 +77,29 @@ function KitchenDashboard() {
         }
     }, [activeFilter, orders]);
 
+    // Live updates over SSE; the slow poll above only backs this up
+    useEffect(() => {
+        const owner = canteenAuthService.getCurrentCanteenOwner();
+        if (!owner?.canteenId) return;
+
+        return orderStreamService.subscribeToCanteenOrders(owner.canteenId, {
+            onOrder: (updated) => {
+                setOrders(prev => orderStreamService.upsertOrder(prev, updated));
+                setLastUpdated(new Date());
+            },
+            onResync: async () => {
+                const data = await orderService.getActiveCanteenOrders(owner.canteenId);
+                setOrders(data);
+                setLastUpdated(new Date());
+            }
+        });
+    }, []);
+
     const handleManualRefresh = async () => {
         setIsRefreshing(true);
         try {
             if (canteenOwner?.canteenId) {
-                const data = await orderService.getCanteenOrders(canteenOwner.canteenId);
+                const data = await orderService.getActiveCanteenOrders(canteenOwner.canteenId);
                 setOrders(data);
                 setLastUpdated(new Date());
             }
@@ -96,7 +115,7 @@ function KitchenDashboard() {
             await orderService.updateOrderStatus(orderId, newStatus, canteenOwner.canteenId);
 
             // Refresh orders immediately
-            const data = await orderService.getCanteenOrders(canteenOwner.canteenId);
+            const data = await orderService.getActiveCanteenOrders(canteenOwner.canteenId);
             setOrders(data);
         } catch (error) {
             console.error('Error updating order status:', error);
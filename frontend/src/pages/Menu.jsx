@@ -171,7 +171,8 @@ function Menu() {
             MEDIUM: { emoji: '⚡', text: 'Medium Queue', bg: 'bg-yellow-500' },
             LOW: { emoji: '✓', text: 'Low Queue', bg: 'bg-green-500' },
         }
-        return configs[queueInfo.queueStatus] ?? null
+        const config = configs[queueInfo.queueStatus]
+        return config ? { ...config, waitMinutes: queueInfo.estimatedWaitMinutes } : null
     }
 
     if (loading) {
@@ -397,6 +398,7 @@ function Menu() {
                                         {queueBadge && (
                                             <div className={`absolute top-2 right-2 ${queueBadge.bg} text-white px-2 py-0.5 rounded-full text-[10px] font-bold shadow-lg flex items-center gap-1`}>
                                                 <span>{queueBadge.emoji}</span><span>{queueBadge.text}</span>
+                                                {queueBadge.waitMinutes != null && <span className="opacity-80">· ~{queueBadge.waitMinutes}m</span>}
                                             </div>
                                         )}
                                         <div className={`w-14 h-14 rounded-full overflow-hidden flex items-center justify-center ${isSelected ? 'ring-2 ring-white/40' : 'ring-1 ring-white/[0.08]'}`}>
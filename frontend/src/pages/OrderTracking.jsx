@@ -1,6 +1,7 @@
 import { useState, useEffect } from 'react';
 import { useParams, useNavigate, Link } from 'react-router-dom';
 import orderService from '../services/orderService';
+import orderStreamService from '../services/orderStreamService';
 import Navbar from '../components/Navbar';
 
 function OrderTracking() {
@@ -35,13 +36,33 @@ function OrderTracking() {
         // Initial fetch
         fetchOrderStatus();
 
-        // Poll every 5 seconds for real-time updates
-        const pollInterval = setInterval(fetchOrderStatus, 5000);
+        // Fallback poll every 30 seconds; signed-in users get changes over the order stream
+        const pollInterval = setInterval(fetchOrderStatus, 30000);
 
         // Cleanup on unmount
         return () => clearInterval(pollInterval);
     }, [orderId, order?.orderStatus]);
 
+    // Live status changes for this order
+    useEffect(() => {
+        return orderStreamService.subscribeToUserOrders({
+            onOrder: (updated) => {
+                if (updated.id !== orderId) return;
+                setOrder(prev => {
+                    if (updated.orderStatus === 'READY' && prev?.orderStatus !== 'READY') {
+                        setShowConfetti(true);
+                        setTimeout(() => setShowConfetti(false), 5000);
+                    }
+                    return { ...prev, ...updated };
+                });
+            },
+            onResync: async () => {
+                const data = await orderService.getOrderStatus(orderId);
+                setOrder(data);
+            }
+        });
+    }, [orderId]);
+
     const getStepStatus = (stepStatus) => {
         if (!order) return 'upcoming';
 
@@ -202,6 +223,11 @@ function OrderTracking() {
                 {/* Order Progress */}
                 <div className="bg-white/80 backdrop-blur-sm rounded-2xl shadow-xl p-8 mb-8 border border-blue-100">
                     <h2 className="text-2xl font-bold text-gray-900 mb-8">Order Progress</h2>
+                    {order.estimatedWaitMinutes != null && (
+                        <p className="-mt-6 mb-8 text-gray-600">
+                            Estimated ready in <span className="font-semibold text-gray-900">~{order.estimatedWaitMinutes} min</span>
+                        </p>
+                    )}
 
                     <div className="space-y-8">
                         {['PENDING', 'PREPARING', 'READY', 'COMPLETED'].map((stepStatus, index) => {
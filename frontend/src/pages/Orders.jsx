@@ -7,10 +7,15 @@ import QRCodeDisplay from '../components/QRCodeDisplay'
 
 function Orders() {
     const [orders, setOrders] = useState([])
+    // Older orders are fetched a page at a time; null once the whole history is shown
+    const [nextCursor, setNextCursor] = useState(null)
+    const [loadingMore, setLoadingMore] = useState(false)
     const [loading, setLoading] = useState(true)
     const [error, setError] = useState('')
     const [reviewModalOpen, setReviewModalOpen] = useState(false)
     const [selectedOrder, setSelectedOrder] = useState(null)
+    // QR images are fetched only for the orders the user opens
+    const [visibleQrCodes, setVisibleQrCodes] = useState({})
 
     useEffect(() => {
         fetchOrders()
@@ -19,10 +24,10 @@ function Orders() {
     const fetchOrders = async () => {
         try {
             setLoading(true)
-            const data = await orderService.getUserOrders()
-            // Sort by most recent first
-            const sortedOrders = data.sort((a, b) => new Date(b.createdAt) - new Date(a.createdAt))
-            setOrders(sortedOrders)
+            // Pages come newest first
+            const page = await orderService.getUserOrdersPage()
+            setOrders(page.items)
+            setNextCursor(page.nextCursor)
         } catch (err) {
             console.error('Error fetching orders:', err)
             setError('Failed to load orders')
@@ -31,6 +36,20 @@ function Orders() {
         }
     }
 
+    const loadMoreOrders = async () => {
+        if (!nextCursor) return
+        try {
+            setLoadingMore(true)
+            const page = await orderService.getUserOrdersPage({ cursor: nextCursor })
+            setOrders(prev => [...prev, ...page.items])
+            setNextCursor(page.nextCursor)
+        } catch (err) {
+            console.error('Error loading more orders:', err)
+        } finally {
+            setLoadingMore(false)
+        }
+    }
+
     const formatDate = (dateString) => {
         const date = new Date(dateString)
         return date.toLocaleDateString('en-US', {
@@ -232,7 +251,7 @@ function Orders() {
                                             )}
 
                                             {/* QR Code for Pickup */}
-                                            {order.paymentStatus?.toLowerCase() === 'succeeded' && order.qrCodeBase64 && (
+                                            {order.paymentStatus?.toLowerCase() === 'succeeded' && (
                                                 <div className="mt-6 bg-gradient-to-br from-orange-50 to-red-50 border-2 border-orange-200 rounded-xl p-6">
                                                     <h4 className="font-bold text-gray-900 mb-4 flex items-center text-lg">
                                                         <svg className="w-6 h-6 mr-2 text-orange-600" fill="none" stroke="currentColor" viewBox="0 0 24 24">
@@ -244,11 +263,19 @@ function Orders() {
                                                         <p className="text-sm text-gray-600 mb-4 text-center">
                                                             📱 Show this QR code to the canteen staff for quick pickup
                                                         </p>
-                                                        <QRCodeDisplay
-                                                            qrCodeBase64={order.qrCodeBase64}
-                                                            orderId={order.id}
-                                                            size={200}
-                                                        />
+                                                        {visibleQrCodes[order.id] ? (
+                                                            <QRCodeDisplay
+                                                                orderId={order.id}
+                                                                size={200}
+                                                            />
+                                                        ) : (
+                                                            <button
+                                                                onClick={() => setVisibleQrCodes(prev => ({ ...prev, [order.id]: true }))}
+                                                                className="block mx-auto px-6 py-2 bg-orange-600 text-white rounded-lg hover:bg-orange-700 transition font-semibold"
+                                                            >
+                                                                Show QR Code
+                                                            </button>
+                                                        )}
                                                     </div>
                                                 </div>
                                             )}
@@ -291,6 +318,17 @@ function Orders() {
                                         </div>
                                     </div>
                                 ))}
+                                {nextCursor && (
+                                    <div className="text-center">
+                                        <button
+                                            onClick={loadMoreOrders}
+                                            disabled={loadingMore}
+                                            className="px-8 py-3 bg-white border border-gray-200 text-gray-700 rounded-lg hover:bg-gray-50 transition font-semibold shadow disabled:opacity-50 disabled:cursor-not-allowed"
+                                        >
+                                            {loadingMore ? 'Loading...' : 'Load older orders'}
+                                        </button>
+                                    </div>
+                                )}
                             </div>
                         )}
                     </>
@@ -2,13 +2,22 @@ import api from './api';
 import canteenAuthService from './canteenAuthService';
 
 const orderService = {
-    createOrder: async (orderData) => {
-        const response = await api.post('/orders', orderData);
+    createOrder: async (orderData, idempotencyKey) => {
+        const response = await api.post('/orders', orderData, {
+            headers: { 'Idempotency-Key': idempotencyKey }
+        });
+        return response.data;
+    },
+
+    // Returns { items, nextCursor }; pass nextCursor back as params.cursor for the next page
+    getUserOrdersPage: async (params = {}) => {
+        const response = await api.get('/orders', { params });
         return response.data;
     },
 
-    getUserOrders: async () => {
-        const response = await api.get('/orders');
+    // Totals over the whole history, for dashboards
+    getUserOrderStats: async () => {
+        const response = await api.get('/orders/stats');
         return response.data;
     },
 
@@ -17,10 +26,36 @@ const orderService = {
         return response.data;
     },
 
-    getCanteenOrders: async (canteenId) => {
+    // PNG of the pickup QR code as a Blob
+    getOrderQrCode: async (orderId) => {
+        const response = await api.get(`/orders/${orderId}/qr`, { responseType: 'blob' });
+        return response.data;
+    },
+
+    // Paid orders still to prepare or hand over, for the kitchen board
+    getActiveCanteenOrders: async (canteenId) => {
+        const owner = canteenAuthService.getCurrentCanteenOwner();
+        const token = owner?.token;
+        const response = await api.get(`/orders/canteen/${canteenId}/active`, {
+            headers: { Authorization: `Bearer ${token}` }
+        });
+        return response.data;
+    },
+
+    getCanteenOrdersPage: async (canteenId, params = {}) => {
         const owner = canteenAuthService.getCurrentCanteenOwner();
         const token = owner?.token;
         const response = await api.get(`/orders/canteen/${canteenId}`, {
+            params,
+            headers: { Authorization: `Bearer ${token}` }
+        });
+        return response.data;
+    },
+
+    getCanteenOrderStats: async (canteenId) => {
+        const owner = canteenAuthService.getCurrentCanteenOwner();
+        const token = owner?.token;
+        const response = await api.get(`/orders/canteen/${canteenId}/stats`, {
             headers: { Authorization: `Bearer ${token}` }
         });
         return response.data;
@@ -0,0 +1,96 @@
+import authService from './authService';
+import canteenAuthService from './canteenAuthService';
+
+// Server-Sent Events over fetch rather than EventSource, so the JWT can be sent
+// in the Authorization header. Reconnects with Last-Event-ID to replay missed
+// events; a 'resync' event means the gap was too large and the caller should refetch.
+const subscribe = (path, token, { onOrder, onResync }) => {
+    let lastEventId = null;
+    let controller = null;
+    let stopped = false;
+    let retryDelay = 1000;
+
+    const dispatch = (block) => {
+        let event = 'message';
+        let data = '';
+        let id = null;
+        for (const line of block.split('\n')) {
+            if (!line || line.startsWith(':')) continue; // heartbeat comments
+            const separator = line.indexOf(':');
+            const field = separator >= 0 ? line.slice(0, separator) : line;
+            let value = separator >= 0 ? line.slice(separator + 1) : '';
+            if (value.startsWith(' ')) value = value.slice(1);
+            if (field === 'event') event = value;
+            else if (field === 'data') data += (data ? '\n' : '') + value;
+            else if (field === 'id') id = value;
+        }
+        if (id) lastEventId = id;
+        if (event === 'order' && data) onOrder(JSON.parse(data));
+        else if (event === 'resync' && onResync) onResync();
+    };
+
+    const connect = async () => {
+        controller = new AbortController();
+        try {
+            const headers = { Accept: 'text/event-stream', Authorization: `Bearer ${token}` };
+            if (lastEventId) headers['Last-Event-ID'] = lastEventId;
+            const response = await fetch(`/api${path}`, { headers, signal: controller.signal });
+            if (!response.ok) throw new Error(`Order stream failed with status ${response.status}`);
+            retryDelay = 1000;
+
+            const reader = response.body.getReader();
+            const decoder = new TextDecoder();
+            let buffer = '';
+            for (;;) {
+                const { value, done } = await reader.read();
+                if (done) break;
+                buffer += decoder.decode(value, { stream: true }).replace(/\r\n/g, '\n');
+                let boundary;
+                while ((boundary = buffer.indexOf('\n\n')) >= 0) {
+                    dispatch(buffer.slice(0, boundary));
+                    buffer = buffer.slice(boundary + 2);
+                }
+            }
+        } catch (err) {
+            if (stopped) return;
+            console.error('Order stream error:', err);
+        }
+        if (!stopped) {
+            setTimeout(connect, retryDelay);
+            retryDelay = Math.min(retryDelay * 2, 30000);
+        }
+    };
+
+    connect();
+    return () => {
+        stopped = true;
+        controller?.abort();
+    };
+};
+
+// Replaces an order in a list by id, or adds it at the top if it is new
+const upsertOrder = (orders, updated) => {
+    const index = orders.findIndex(o => o.id === updated.id);
+    if (index < 0) return [updated, ...orders];
+    const next = [...orders];
+    next[index] = { ...orders[index], ...updated };
+    return next;
+};
+
+const orderStreamService = {
+    subscribeToUserOrders: (handlers) => {
+        const user = authService.getCurrentUser();
+        if (!user?.token) return () => {};
+        return subscribe('/orders/stream', user.token, handlers);
+    },
+
+    subscribeToCanteenOrders: (canteenId, handlers) => {
+        const owner = canteenAuthService.getCurrentCanteenOwner();
+        if (!owner?.token) return () => {};
+        return subscribe(`/orders/canteen/${canteenId}/stream`, owner.token, handlers);
+    },
+
+    upsertOrder
+};
+
+export default orderStreamService;
@@ -1,20 +1,29 @@
 import api from './api';
 
 const paymentService = {
-    createPaymentIntent: async (orderId, amount) => {
+    // The amount is computed by the server from the session's orders
+    createPaymentIntent: async (checkoutSessionId) => {
         const response = await api.post('/payment/create-intent', {
-            orderId,
-            amount
+            checkoutSessionId
         });
         return response.data;
     },
 
-    confirmPayment: async (paymentIntentId, orderIds) => {
+    confirmPayment: async (paymentIntentId) => {
         const response = await api.post('/payment/confirm', {
-            paymentIntentId,
-            orderIds
+            paymentIntentId
         });
         return response.data;
+    },
+
+    // Orders are settled by Stripe's webhook, which can land shortly after the browser sees success
+    waitForConfirmation: async (paymentIntentId, attempts = 10, intervalMs = 1000) => {
+        let result = await paymentService.confirmPayment(paymentIntentId);
+        for (let i = 1; i < attempts && result.status !== 'succeeded'; i++) {
+            await new Promise(resolve => setTimeout(resolve, intervalMs));
+            result = await paymentService.confirmPayment(paymentIntentId);
+        }
+        return result;
     }
 };
 
@@ -5,7 +5,7 @@ const API_URL = import.meta.env.VITE_API_URL || 'http://localhost:8081/api';
 const qrService = {
     /**
      * Verify a scanned QR code
-     * @param {string} scannedData - The order ID from the QR code
+     * @param {string} scannedData - The signed token (or order ID, for older codes) from the QR code
      * @param {string} canteenId - The canteen ID to verify against
      * @returns {Promise} Order details if valid
      */